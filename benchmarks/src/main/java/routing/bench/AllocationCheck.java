@@ -0,0 +1,63 @@
+package routing.bench;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+// Fails when the reusable query path allocates. Runs reusableRouteQuery with
+// the GC profiler and checks gc.alloc.rate.norm against a small budget, which
+// only covers profiler noise, not per-query arrays or result objects.
+//
+//   mvn verify -Pallocation-check
+public class AllocationCheck {
+    private static final double MAX_BYTES_PER_QUERY = 16;
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include("routing\\.bench\\.(RouteQuery|SyntheticNetwork)Benchmark\\.reusableRouteQuery")
+            .param("engine", "dijkstra")
+            .param("nodes", "10000")
+            .warmupIterations(2)
+            .warmupTime(TimeValue.seconds(1))
+            .measurementIterations(3)
+            .measurementTime(TimeValue.seconds(1))
+            .forks(1)
+            .addProfiler(GCProfiler.class)
+            .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        boolean failed = results.isEmpty();
+        for (RunResult result : results) {
+            String label = result.getParams().getBenchmark() + " " + result.getParams().getParam("criterion");
+            double bytesPerQuery = allocationPerOp(result);
+            if (Double.isNaN(bytesPerQuery) || bytesPerQuery > MAX_BYTES_PER_QUERY) {
+                System.err.printf("FAIL %s: %.1f B/query (budget %.0f)%n", label, bytesPerQuery, MAX_BYTES_PER_QUERY);
+                failed = true;
+            } else {
+                System.out.printf("ok   %s: %.1f B/query%n", label, bytesPerQuery);
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static double allocationPerOp(RunResult result) {
+        for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+            // Older JMH versions prefix profiler metrics with a middle dot
+            if (entry.getKey().endsWith(ALLOCATION_METRIC)) {
+                return entry.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
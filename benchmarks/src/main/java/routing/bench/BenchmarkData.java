@@ -0,0 +1,25 @@
+package routing.bench;
+
+import java.io.File;
+
+// Locates the capitals/flights sample file shipped at the repository root
+final class BenchmarkData {
+    static final String DATA_FILE_PROPERTY = "routing.data";
+    private static final String DEFAULT_NAME = "Capital Coordinates.txt";
+
+    private BenchmarkData() {
+    }
+
+    static String capitalsFile() {
+        String configured = System.getProperty(DATA_FILE_PROPERTY);
+        if (configured != null) {
+            return configured;
+        }
+        for (String candidate : new String[] { DEFAULT_NAME, "../" + DEFAULT_NAME }) {
+            if (new File(candidate).isFile()) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("Cannot find " + DEFAULT_NAME + "; pass -D" + DATA_FILE_PROPERTY + "=<path>");
+    }
+}
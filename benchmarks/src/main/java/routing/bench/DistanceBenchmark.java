@@ -0,0 +1,43 @@
+package routing.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.Capital;
+import routing.FlightDataLoader;
+import routing.GreatCircle;
+
+// Haversine distance between capital pairs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceBenchmark {
+    private Capital[] capitals;
+    private QueryWorkload workload;
+
+    @Setup
+    public void setUp() throws IOException {
+        capitals = FlightDataLoader.load(BenchmarkData.capitalsFile()).getCapitals();
+        workload = new QueryWorkload(capitals.length, 1024, 42);
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        int pair = workload.advance();
+        return GreatCircle.distance(capitals[workload.source(pair)], capitals[workload.target(pair)]);
+    }
+}
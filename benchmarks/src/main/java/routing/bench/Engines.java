@@ -0,0 +1,43 @@
+package routing.bench;
+
+import routing.AStarEngine;
+import routing.AllPairsTable;
+import routing.BidirectionalDijkstraEngine;
+import routing.ContractionHierarchyEngine;
+import routing.DijkstraEngine;
+import routing.FlightGraph;
+import routing.GreatCircleBound;
+import routing.LandmarkBound;
+import routing.LandmarkTables;
+import routing.LazyDijkstraEngine;
+import routing.ShortestPathEngine;
+
+// Maps the engine names used in @Param values to implementations
+final class Engines {
+    private static final int LANDMARKS = 16;
+
+    private Engines() {
+    }
+
+    static ShortestPathEngine create(String name, FlightGraph graph) {
+        switch (name) {
+            case "dijkstra":
+                return new DijkstraEngine(graph);
+            case "lazy":
+                return new LazyDijkstraEngine(graph);
+            case "bidirectional":
+                return new BidirectionalDijkstraEngine(graph);
+            case "astar":
+                return new AStarEngine(graph);
+            case "ch":
+                return new ContractionHierarchyEngine(graph);
+            case "table":
+                return AllPairsTable.build(graph);
+            case "alt":
+                LandmarkTables tables = LandmarkTables.build(graph, LANDMARKS, LandmarkTables.Selection.AVOID);
+                return new AStarEngine(graph, new LandmarkBound(tables, new GreatCircleBound(graph)));
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + name);
+        }
+    }
+}
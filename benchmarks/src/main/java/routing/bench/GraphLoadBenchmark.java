@@ -0,0 +1,88 @@
+package routing.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.FlightDataLoader;
+import routing.FlightGraph;
+import routing.ParallelFlightLoader;
+import routing.RouteNetwork;
+
+// Parsing the capitals sample file, serially and in parallel chunks, and
+// packing its flights into a graph. Point -Drouting.data at a large route
+// dump to measure how loading scales with cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphLoadBenchmark {
+    private String dataFile;
+    private String[] sources;
+    private String[] destinations;
+    private double[] costs;
+    private int[] durations;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataFile = BenchmarkData.capitalsFile();
+        FlightGraph graph = FlightDataLoader.load(dataFile).getGraph();
+
+        // Recover the undirected flight list from the CSR rows
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int count = 0;
+        for (int city = 0; city < graph.getCityCount(); city++) {
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                if (city <= targets[e]) count++;
+            }
+        }
+        sources = new String[count];
+        destinations = new String[count];
+        costs = new double[count];
+        durations = new int[count];
+        int i = 0;
+        for (int city = 0; city < graph.getCityCount(); city++) {
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                if (city <= targets[e]) {
+                    sources[i] = graph.getCity(city);
+                    destinations[i] = graph.getCity(targets[e]);
+                    costs[i] = graph.getCosts()[e];
+                    durations[i] = graph.getDurations()[e];
+                    i++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public RouteNetwork loadCapitalsFile() throws IOException {
+        return FlightDataLoader.load(dataFile);
+    }
+
+    @Benchmark
+    public RouteNetwork loadCapitalsFileParallel() throws IOException {
+        return ParallelFlightLoader.load(dataFile);
+    }
+
+    @Benchmark
+    public int buildGraphFromFlights() {
+        FlightGraph graph = new FlightGraph();
+        for (int i = 0; i < sources.length; i++) {
+            graph.addFlight(sources[i], destinations[i], costs[i], durations[i]);
+        }
+        return graph.getEdgeCount(); // forces the CSR build
+    }
+}
@@ -0,0 +1,58 @@
+package routing.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.Criterion;
+import routing.FlightGraph;
+import routing.KShortestPathsEngine;
+import routing.PathResult;
+
+// Alternative-route queries on generated scale-free networks, up to k = 20
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class KShortestPathsBenchmark {
+    private static final int EDGES_PER_NODE = 3;
+
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ "1", "5", "20" })
+    public int k;
+
+    @Param({ "Less Cost", "Less Time" })
+    public String criterion;
+
+    private KShortestPathsEngine engine;
+    private Criterion queryCriterion;
+    private QueryWorkload workload;
+
+    @Setup
+    public void setUp() {
+        FlightGraph graph = ScaleFreeNetworks.generate(nodes, EDGES_PER_NODE, 7);
+        engine = new KShortestPathsEngine(graph);
+        queryCriterion = Criterion.fromLabel(criterion);
+        workload = new QueryWorkload(graph.getCityCount(), 1024, 42);
+    }
+
+    @Benchmark
+    public PathResult[] alternativeRoutes() {
+        int query = workload.advance();
+        return engine.findRoutes(workload.source(query), workload.target(query), queryCriterion, k);
+    }
+}
@@ -0,0 +1,76 @@
+package routing.bench;
+
+import routing.AStarEngine;
+import routing.Criterion;
+import routing.DijkstraEngine;
+import routing.FlightGraph;
+import routing.GreatCircleBound;
+import routing.LandmarkBound;
+import routing.LandmarkTables;
+import routing.Route;
+import routing.ShortestPathEngine;
+
+// Fails when a goal-directed engine returns a worse route than Dijkstra on
+// networks where a lower bound is easy to get wrong.
+//
+//   mvn verify -Poptimality-check
+public class OptimalityCheck {
+    private static boolean failed = false;
+
+    public static void main(String[] args) {
+        // S, D and B have coordinates, X has none. The direct flight S-B is
+        // slow, the detour S-D-X-B takes 3 minutes although D is no closer
+        // to B than S is, so no speed seen between known cities bounds it.
+        FlightGraph graph = new FlightGraph();
+        graph.addCity("S", 0, 0);
+        graph.addCity("D", 0, 0);
+        graph.addCity("B", 0, 9);
+        graph.addFlight("S", "B", 1, 1000);
+        AStarEngine astar = new AStarEngine(graph);
+        check("astar before the detour", graph, astar, "S", "B");
+
+        // The bound was built before the detour existed and must notice it
+        graph.addFlight("S", "D", 1, 1);
+        graph.addFlight("D", "X", 1, 1);
+        graph.addFlight("X", "B", 1, 1);
+        check("astar after addFlight", graph, astar, "S", "B");
+        check("astar", graph, new AStarEngine(graph), "S", "B");
+        LandmarkTables tables = LandmarkTables.build(graph, 2, LandmarkTables.Selection.AVOID);
+        check("alt", graph, new AStarEngine(graph, new LandmarkBound(tables, new GreatCircleBound(graph))), "S", "B");
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    private static void check(String label, FlightGraph graph, ShortestPathEngine engine, String from, String to) {
+        int source = graph.getCityIndexByName(from);
+        int target = graph.getCityIndexByName(to);
+        ShortestPathEngine reference = new DijkstraEngine(graph);
+        Route expected = new Route();
+        Route actual = new Route();
+        for (Criterion criterion : Criterion.values()) {
+            boolean expectedFound = reference.findRoute(source, target, criterion, expected);
+            boolean actualFound = engine.findRoute(source, target, criterion, actual);
+            if (expectedFound != actualFound || (expectedFound && total(expected, criterion) != total(actual, criterion))) {
+                System.err.printf("FAIL %s %s %s-%s: %s, Dijkstra %s%n", label, criterion, from, to,
+                    actualFound ? total(actual, criterion) : "no route",
+                    expectedFound ? total(expected, criterion) : "no route");
+                failed = true;
+            } else {
+                System.out.printf("ok   %s %s %s-%s%n", label, criterion, from, to);
+            }
+        }
+    }
+
+    private static double total(Route route, Criterion criterion) {
+        switch (criterion) {
+            case COST:
+                return route.totalCost;
+            case TIME:
+                return route.totalDuration;
+            default:
+                return route.totalDistance;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package routing.bench;
+
+import java.util.Random;
+
+// Fixed pseudo-random source/target pairs, cycled through by the query benchmarks
+final class QueryWorkload {
+    private final int[] sources;
+    private final int[] targets;
+    private int next;
+
+    QueryWorkload(int cityCount, int size, long seed) {
+        Random random = new Random(seed);
+        sources = new int[size];
+        targets = new int[size];
+        for (int i = 0; i < size; i++) {
+            sources[i] = random.nextInt(cityCount);
+            do {
+                targets[i] = random.nextInt(cityCount);
+            } while (cityCount > 1 && targets[i] == sources[i]);
+        }
+    }
+
+    // Advances to the next pair and returns its index
+    int advance() {
+        int index = next;
+        next = index + 1 == sources.length ? 0 : index + 1;
+        return index;
+    }
+
+    int source(int index) {
+        return sources[index];
+    }
+
+    int target(int index) {
+        return targets[index];
+    }
+}
@@ -0,0 +1,65 @@
+package routing.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.Criterion;
+import routing.FlightDataLoader;
+import routing.PathResult;
+import routing.Route;
+import routing.RouteNetwork;
+import routing.ShortestPathEngine;
+
+// Single-pair queries over the capitals sample file, one run per criterion
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteQueryBenchmark {
+    @Param({ "Less Cost", "Less Time", "Shortest Distance" })
+    public String criterion;
+
+    @Param({ "dijkstra", "lazy", "bidirectional", "astar", "alt", "ch", "table" })
+    public String engine;
+
+    private ShortestPathEngine routeEngine;
+    private Criterion queryCriterion;
+    private QueryWorkload workload;
+    private final Route route = new Route();
+
+    @Setup
+    public void setUp() throws IOException {
+        RouteNetwork network = FlightDataLoader.load(BenchmarkData.capitalsFile());
+        routeEngine = Engines.create(engine, network.getGraph());
+        queryCriterion = Criterion.fromLabel(criterion);
+        workload = new QueryWorkload(network.getGraph().getCityCount(), 1024, 42);
+    }
+
+    @Benchmark
+    public PathResult singlePairQuery() {
+        int query = workload.advance();
+        return routeEngine.findShortestPath(workload.source(query), workload.target(query), queryCriterion);
+    }
+
+    // Steady-state path: reused Route and per-thread workspace, expected ~0 B/op
+    @Benchmark
+    public Route reusableRouteQuery() {
+        int query = workload.advance();
+        routeEngine.findRoute(workload.source(query), workload.target(query), queryCriterion, route);
+        return route;
+    }
+}
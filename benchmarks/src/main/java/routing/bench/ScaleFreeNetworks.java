@@ -0,0 +1,76 @@
+package routing.bench;
+
+import java.util.Random;
+
+import routing.FlightGraph;
+import routing.GreatCircle;
+
+// Synthetic route networks for benchmarks, grown by preferential attachment
+// (Barabasi-Albert) so a few hubs collect most flights, as real airports do.
+final class ScaleFreeNetworks {
+    private static final double CRUISE_KM_PER_MIN = 13.0;
+
+    private ScaleFreeNetworks() {
+    }
+
+    // Each new city connects to edgesPerNode distinct existing cities, picked
+    // with probability proportional to their current degree.
+    static FlightGraph generate(int nodes, int edgesPerNode, long seed) {
+        Random random = new Random(seed);
+        FlightGraph graph = new FlightGraph();
+        double[] latitudes = new double[nodes];
+        double[] longitudes = new double[nodes];
+        for (int i = 0; i < nodes; i++) {
+            latitudes[i] = -60 + random.nextDouble() * 130;
+            longitudes[i] = -180 + random.nextDouble() * 360;
+            graph.addCity(cityName(i), latitudes[i], longitudes[i]);
+        }
+
+        // Every flight endpoint is appended here, so a uniform pick is degree-weighted
+        int[] endpoints = new int[2 * nodes * edgesPerNode];
+        int endpointCount = 0;
+        int seedSize = Math.min(nodes, edgesPerNode + 1);
+        for (int i = 0; i < seedSize; i++) {
+            for (int j = i + 1; j < seedSize; j++) {
+                addFlight(graph, random, latitudes, longitudes, i, j);
+                endpoints[endpointCount++] = i;
+                endpoints[endpointCount++] = j;
+            }
+        }
+
+        int[] chosen = new int[edgesPerNode];
+        for (int city = seedSize; city < nodes; city++) {
+            int picked = 0;
+            while (picked < edgesPerNode) {
+                int candidate = endpoints[random.nextInt(endpointCount)];
+                boolean duplicate = false;
+                for (int k = 0; k < picked; k++) {
+                    if (chosen[k] == candidate) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (!duplicate) {
+                    chosen[picked++] = candidate;
+                }
+            }
+            for (int k = 0; k < edgesPerNode; k++) {
+                addFlight(graph, random, latitudes, longitudes, city, chosen[k]);
+                endpoints[endpointCount++] = city;
+                endpoints[endpointCount++] = chosen[k];
+            }
+        }
+        return graph;
+    }
+
+    static String cityName(int index) {
+        return "City" + index;
+    }
+
+    private static void addFlight(FlightGraph graph, Random random, double[] latitudes, double[] longitudes, int a, int b) {
+        double km = GreatCircle.distance(latitudes[a], longitudes[a], latitudes[b], longitudes[b]);
+        double cost = Math.round(40 + km * 0.06 + random.nextInt(150));
+        int duration = (int) Math.round(35 + km / CRUISE_KM_PER_MIN + random.nextInt(60));
+        graph.addFlight(cityName(a), cityName(b), cost, duration);
+    }
+}
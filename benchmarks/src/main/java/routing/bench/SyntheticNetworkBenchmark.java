@@ -0,0 +1,68 @@
+package routing.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import routing.Criterion;
+import routing.FlightGraph;
+import routing.PathResult;
+import routing.Route;
+import routing.ShortestPathEngine;
+
+// Single-pair queries on generated scale-free networks of increasing size
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SyntheticNetworkBenchmark {
+    private static final int EDGES_PER_NODE = 3;
+
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    @Param({ "Less Cost", "Less Time", "Shortest Distance" })
+    public String criterion;
+
+    @Param({ "dijkstra", "bidirectional", "astar", "alt" })
+    public String engine;
+
+    private ShortestPathEngine routeEngine;
+    private Criterion queryCriterion;
+    private QueryWorkload workload;
+    private final Route route = new Route();
+
+    @Setup
+    public void setUp() {
+        FlightGraph graph = ScaleFreeNetworks.generate(nodes, EDGES_PER_NODE, 7);
+        routeEngine = Engines.create(engine, graph);
+        queryCriterion = Criterion.fromLabel(criterion);
+        workload = new QueryWorkload(graph.getCityCount(), 1024, 42);
+    }
+
+    @Benchmark
+    public PathResult singlePairQuery() {
+        int query = workload.advance();
+        return routeEngine.findShortestPath(workload.source(query), workload.target(query), queryCriterion);
+    }
+
+    // Steady-state path: reused Route and per-thread workspace, expected ~0 B/op
+    @Benchmark
+    public Route reusableRouteQuery() {
+        int query = workload.advance();
+        routeEngine.findRoute(workload.source(query), workload.target(query), queryCriterion, route);
+        return route;
+    }
+}
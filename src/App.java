@@ -1,5 +1,288 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import routing.Criterion;
+import routing.AStarEngine;
+import routing.AllPairsTable;
+import routing.BidirectionalDijkstraEngine;
+import routing.ContractionHierarchyEngine;
+import routing.DijkstraEngine;
+import routing.GraphSnapshot;
+import routing.GreatCircleBound;
+import routing.LandmarkBound;
+import routing.LandmarkTables;
+import routing.LazyDijkstraEngine;
+import routing.MetricsReporter;
+import routing.Objective;
+import routing.ParallelFlightLoader;
+import routing.PathResult;
+import routing.FlightGraph;
+import routing.Route;
+import routing.RouteCache;
+import routing.RouteNetwork;
+import routing.RoutingMetrics;
+
+// Headless batch mode: answers "source,target,criteria" query lines without a display.
+//
+//   java App <data-file> [query-file|-] [--engine dijkstra|lazy|bidirectional|astar|alt|ch|table|table-fw]
+//            [--landmarks table-file] [--snapshot snapshot-file] [--alternatives k] [--cache entries]
+//            [--metrics seconds]
+//
+// Queries are read from the query file, or from stdin when it is omitted or "-".
+// Each query produces one output line:
+//   source,target,criteria,OK,cost,duration,distance,City1 -> City2 -> ...
+//   source,target,criteria,NO_ROUTE,,,,
+//   <input line>,ERROR,<message>
+//
+// The criteria "pareto" asks for every cost/duration trade-off instead: one
+// OK line per route, cheapest first, or a single NO_ROUTE line. Criteria can
+// also combine the three: a weighted sum such as "cost + 0.5*time" or a
+// lexicographic order such as "time > cost" (time first, cost on ties).
+//
+// With --alternatives k, criteria and objective queries print up to k
+// loopless routes each, best first, one OK line per route.
+//
+// With --cache, answers to criteria queries are kept in an LRU cache of that
+// many entries, so repeated city pairs are not searched again; its hit rate
+// is written to stderr at the end.
+//
+// The ch engine contracts the network once per criterion at startup. The alt
+// engine builds landmark tables at startup; with --landmarks they are
+// read from that file, or built and written there if it does not exist yet.
+// The table engines precompute every route at startup, table with one
+// Dijkstra search per city and table-fw with blocked Floyd-Warshall.
+//
+// With --snapshot, the network is opened from that binary snapshot when it is
+// newer than the data file, and otherwise parsed from text and written there.
+//
+// With --metrics, search counters and latency percentiles for each interval
+// are written to stderr.
 public class App {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int LANDMARKS = 16;
+    private static final String PARETO = "pareto";
+
     public static void main(String[] args) throws Exception {
-        System.out.println("Hello, World!");
+        String dataFile = null;
+        String queryFile = "-";
+        String engineName = "dijkstra";
+        String landmarkFile = null;
+        String snapshotFile = null;
+        long metricsPeriod = 0;
+        int alternatives = 1;
+        int cacheSize = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--engine") && i + 1 < args.length) {
+                engineName = args[++i];
+            } else if (args[i].equals("--landmarks") && i + 1 < args.length) {
+                landmarkFile = args[++i];
+            } else if (args[i].equals("--snapshot") && i + 1 < args.length) {
+                snapshotFile = args[++i];
+            } else if (args[i].equals("--alternatives") && i + 1 < args.length) {
+                alternatives = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cacheSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--metrics") && i + 1 < args.length) {
+                metricsPeriod = Long.parseLong(args[++i]);
+            } else if (dataFile == null) {
+                dataFile = args[i];
+            } else {
+                queryFile = args[i];
+            }
+        }
+        if (dataFile == null) {
+            System.err.println("Usage: java App <data-file> [query-file|-] [--engine dijkstra|lazy|bidirectional|astar|alt|ch|table|table-fw]"
+                + " [--landmarks table-file] [--snapshot snapshot-file] [--alternatives k] [--cache entries] [--metrics seconds]");
+            System.exit(2);
+        }
+
+        RouteNetwork network = loadNetwork(dataFile, snapshotFile);
+        switch (engineName) {
+            case "dijkstra":
+                network.setEngine(new DijkstraEngine(network.getGraph()));
+                break;
+            case "lazy":
+                network.setEngine(new LazyDijkstraEngine(network.getGraph()));
+                break;
+            case "bidirectional":
+                network.setEngine(new BidirectionalDijkstraEngine(network.getGraph()));
+                break;
+            case "astar":
+                network.setEngine(new AStarEngine(network.getGraph()));
+                break;
+            case "ch":
+                network.setEngine(new ContractionHierarchyEngine(network.getGraph()));
+                break;
+            case "table":
+                network.setEngine(AllPairsTable.build(network.getGraph()));
+                break;
+            case "table-fw":
+                network.setEngine(AllPairsTable.build(network.getGraph(), AllPairsTable.Algorithm.FLOYD_WARSHALL,
+                    ForkJoinPool.commonPool()));
+                break;
+            case "alt":
+                LandmarkTables tables = loadLandmarks(network.getGraph(), landmarkFile);
+                network.setEngine(new AStarEngine(network.getGraph(),
+                    new LandmarkBound(tables, new GreatCircleBound(network.getGraph()))));
+                break;
+            default:
+                System.err.println("Unknown engine: " + engineName);
+                System.exit(2);
+        }
+
+        if (cacheSize > 0) {
+            network.setCache(new RouteCache(network.getGraph(), cacheSize));
+        }
+
+        MetricsReporter reporter = null;
+        if (metricsPeriod > 0) {
+            RoutingMetrics metrics = new RoutingMetrics();
+            network.setMetrics(metrics);
+            reporter = new MetricsReporter(metrics, snapshot -> System.err.println("metrics: " + snapshot),
+                metricsPeriod, TimeUnit.SECONDS);
+        }
+
+        InputStream in = queryFile.equals("-") ? System.in : new FileInputStream(queryFile);
+        try (BufferedReader queries = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            long start = System.nanoTime();
+            long count = runQueries(network, queries, out, alternatives);
+            out.flush();
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.err.printf("%d queries in %.3f s (%.0f queries/s)%n", count, seconds, count / Math.max(seconds, 1e-9));
+            if (network.getCache() != null) {
+                System.err.println("cache: " + network.getCache());
+            }
+        } finally {
+            if (reporter != null) {
+                reporter.close();
+            }
+        }
+    }
+
+    private static RouteNetwork loadNetwork(String dataFile, String snapshotFile) throws IOException {
+        if (snapshotFile == null) {
+            return ParallelFlightLoader.load(dataFile);
+        }
+        File snapshot = new File(snapshotFile);
+        if (snapshot.exists() && snapshot.lastModified() >= new File(dataFile).lastModified()) {
+            return GraphSnapshot.open(snapshot.toPath());
+        }
+        RouteNetwork network = ParallelFlightLoader.load(dataFile);
+        GraphSnapshot.write(network, snapshot.toPath());
+        return network;
+    }
+
+    private static LandmarkTables loadLandmarks(FlightGraph graph, String path) throws IOException {
+        if (path != null && new File(path).exists()) {
+            return LandmarkTables.load(path, graph);
+        }
+        LandmarkTables tables = LandmarkTables.build(graph, LANDMARKS, LandmarkTables.Selection.AVOID);
+        if (path != null) {
+            tables.save(path);
+        }
+        return tables;
+    }
+
+    // Streams results as queries are read, so memory use does not grow with the input
+    static long runQueries(RouteNetwork network, BufferedReader queries, Writer out, int alternatives) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        Route route = new Route();
+        long count = 0;
+        String query;
+        while ((query = queries.readLine()) != null) {
+            if (query.isBlank() || query.startsWith("#")) {
+                continue;
+            }
+            line.setLength(0);
+            String[] parts = query.split(",");
+            if (parts.length != 3) {
+                line.append(query).append(",ERROR,expected source,target,criteria");
+            } else {
+                String source = parts[0].trim();
+                String target = parts[1].trim();
+                try {
+                    if (parts[2].trim().equalsIgnoreCase(PARETO)) {
+                        appendRoutes(line, source, target, PARETO, network.findParetoRoutes(source, target).routes);
+                    } else if (isObjective(parts[2])) {
+                        Objective objective = Objective.parse(parts[2]);
+                        if (alternatives > 1) {
+                            appendRoutes(line, source, target, objective.toString(),
+                                network.findAlternativeRoutes(source, target, objective, alternatives));
+                        } else {
+                            network.findRoute(source, target, objective, route);
+                            appendResult(line, network.getGraph(), source, target, objective.toString(), route);
+                        }
+                    } else {
+                        Criterion criterion = Criterion.fromLabel(parts[2]);
+                        if (alternatives > 1) {
+                            appendRoutes(line, source, target, criterion.getLabel(),
+                                network.findAlternativeRoutes(source, target, criterion, alternatives));
+                        } else {
+                            network.findRoute(source, target, criterion, route);
+                            appendResult(line, network.getGraph(), source, target, criterion.getLabel(), route);
+                        }
+                    }
+                } catch (IllegalArgumentException e) {
+                    line.append(query).append(",ERROR,").append(e.getMessage());
+                }
+            }
+            line.append('\n');
+            out.append(line);
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isObjective(String criteria) {
+        return criteria.indexOf('+') >= 0 || criteria.indexOf('*') >= 0 || criteria.indexOf('>') >= 0;
+    }
+
+    // One line per route; routes after the first start on a new line
+    private static void appendRoutes(StringBuilder line, String source, String target, String criteria, PathResult[] routes) {
+        if (routes.length == 0) {
+            line.append(source).append(',').append(target).append(',').append(criteria).append(",NO_ROUTE,,,,");
+            return;
+        }
+        for (int r = 0; r < routes.length; r++) {
+            PathResult result = routes[r];
+            if (r > 0) line.append('\n');
+            line.append(source).append(',').append(target).append(',').append(criteria).append(",OK,")
+                .append(String.format("%.2f", result.totalCost)).append(',')
+                .append(result.totalDuration).append(',')
+                .append(String.format("%.2f", result.totalDistance)).append(',');
+            for (int i = 0; i < result.pathLength; i++) {
+                if (i > 0) line.append(" -> ");
+                line.append(result.path[i]);
+            }
+        }
+    }
+
+    private static void appendResult(StringBuilder line, FlightGraph graph, String source, String target, String criteria, Route route) {
+        line.append(source).append(',').append(target).append(',').append(criteria).append(',');
+        if (route.isEmpty()) {
+            line.append("NO_ROUTE,,,,");
+            return;
+        }
+        line.append("OK,")
+            .append(String.format("%.2f", route.totalCost)).append(',')
+            .append(route.totalDuration).append(',')
+            .append(String.format("%.2f", route.totalDistance)).append(',');
+        for (int i = 0; i < route.length; i++) {
+            if (i > 0) line.append(" -> ");
+            line.append(graph.getCity(route.cities[i]));
+        }
     }
 }
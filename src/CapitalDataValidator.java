@@ -4,6 +4,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import routing.Flight;
+
 public class CapitalDataValidator {
     private static final int EXPECTED_COORDINATE_PARTS = 3;
     private static final int EXPECTED_FLIGHT_PARTS = 4;
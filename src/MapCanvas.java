@@ -0,0 +1,398 @@
+import java.util.Arrays;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import routing.Capital;
+
+// Draws every capital and its label onto one canvas laid over the map's
+// scroll pane, in place of a Circle, Label and Tooltip node per capital.
+// The route is drawn above it by RouteOverlay. Positions are MapProjection's
+// arrays, in the map pane's coordinates and indexed by capital id; each
+// repaint maps them into the viewport, so only what is on screen gets drawn.
+//
+// A uniform grid over the positions answers hover and click hit-tests and
+// finds the capitals under a dirty region. Changes are collected into one
+// dirty rectangle that is repainted at most once per pulse: a hover only
+// repaints the two markers involved, while scrolling or zooming moves every
+// marker and repaints the viewport.
+//
+// Markers scale with the zoom, labels keep one size. Whenever the view moves,
+// the capitals in the viewport are placed by priority (most flights first):
+// a marker only in a screen cell no other marker took, and a label only where
+// it overlaps no label placed before it. Dense areas thin out when zoomed out
+// and fill in when zoomed in, and a repaint costs what is visible, not the
+// whole network. The hovered and highlighted capitals are always shown.
+class MapCanvas extends Canvas {
+    private static final double MARKER_SCALE = 0.8; // markers are drawn at 80% of the map scale, labels at 80% size
+    private static final double CAPITAL_RADIUS = 2;
+    private static final double HIGHLIGHT_RADIUS = 6;
+    private static final double HOVER_GROWTH = 1.5;
+    private static final double HIT_RADIUS = 6; // screen pixels
+    private static final double LABEL_GAP = 20; // from the label's top to the marker's edge
+    private static final double LABEL_HEIGHT = 16;
+    private static final double LABEL_PADDING = 4;
+    private static final double LABEL_FONT_SIZE = 10;
+    private static final double HOVER_FONT_SIZE = 12;
+    private static final double LABEL_CELL = 8; // screen pixels per label collision cell
+    private static final double CELL_SIZE = 16;
+    private static final Font LABEL_FONT = Font.font("Arial", FontWeight.BOLD, LABEL_FONT_SIZE * MARKER_SCALE);
+    private static final Font HOVER_FONT = Font.font("Arial", FontWeight.BOLD, HOVER_FONT_SIZE * MARKER_SCALE);
+    private static final Color CAPITAL_COLOR = Color.PURPLE;
+    private static final Color HIGHLIGHT_COLOR = Color.BLUE;
+    private static final Color LABEL_BACKGROUND = Color.rgb(255, 255, 255, 0.8);
+
+    private final Node map; // the node the positions are relative to
+    private final Capital[] capitals;
+    private final int count;
+    private final double[] x;
+    private final double[] y;
+    private final double[] labelWidth; // text width at LABEL_FONT_SIZE
+    private final double maxLabelWidth;
+    private SpatialGrid grid;
+    private final int[] byPriority; // capital ids, most flights first
+    private final int[] rank; // capital id -> position in byPriority
+    private final int[] found; // scratch for grid queries
+    private final int[] order; // scratch for placement
+    private final Tooltip tooltip = new Tooltip();
+
+    // Markers and labels shown by the latest placement carry its stamp
+    private final int[] markerPlaced;
+    private final int[] labelPlaced;
+    private int placement = 0;
+    private final Occupancy markerCells = new Occupancy();
+    private final Occupancy labelCells = new Occupancy();
+
+    private int highlighted = -1;
+    private int hovered = -1;
+
+    // Map to canvas coordinates: originX + x * scale, and to the scene: sceneX + x * scale
+    private double originX = 0;
+    private double originY = 0;
+    private double sceneX = 0;
+    private double sceneY = 0;
+    private double scale = 1;
+
+    // Canvas region waiting to be repainted, empty when minX > maxX
+    private double dirtyMinX = Double.POSITIVE_INFINITY;
+    private double dirtyMinY = Double.POSITIVE_INFINITY;
+    private double dirtyMaxX = Double.NEGATIVE_INFINITY;
+    private double dirtyMaxY = Double.NEGATIVE_INFINITY;
+    private boolean viewChanged = true;
+    private boolean repaintScheduled = false;
+
+    MapCanvas(Node map, Capital[] capitals, int count, double[] x, double[] y, int[] flightCounts) {
+        this.map = map;
+        this.capitals = capitals;
+        this.count = count;
+        this.x = x;
+        this.y = y;
+
+        Text measure = new Text();
+        measure.setFont(Font.font("Arial", FontWeight.BOLD, LABEL_FONT_SIZE));
+        labelWidth = new double[count];
+        double widest = 0;
+        for (int i = 0; i < count; i++) {
+            measure.setText(capitals[i].name);
+            labelWidth[i] = measure.getLayoutBounds().getWidth();
+            widest = Math.max(widest, labelWidth[i]);
+        }
+        maxLabelWidth = widest;
+        grid = new SpatialGrid(x, y, count, CELL_SIZE);
+        found = new int[count];
+        order = new int[count];
+        markerPlaced = new int[count];
+        labelPlaced = new int[count];
+
+        // Sort ids by flight count, packed with the id into longs so no boxing is needed
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) (Integer.MAX_VALUE - flightCounts[i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+        byPriority = new int[count];
+        rank = new int[count];
+        for (int r = 0; r < count; r++) {
+            byPriority[r] = (int) keys[r];
+            rank[byPriority[r]] = r;
+        }
+
+        widthProperty().addListener((obs, oldWidth, width) -> viewChanged());
+        heightProperty().addListener((obs, oldHeight, height) -> viewChanged());
+    }
+
+    // The map moved, was zoomed or the viewport was resized
+    void viewChanged() {
+        viewChanged = true;
+        invalidate(0, 0, getWidth(), getHeight());
+    }
+
+    // The projected positions were updated in place
+    void positionsChanged() {
+        grid = new SpatialGrid(x, y, count, CELL_SIZE);
+        viewChanged();
+    }
+
+    // Capital id under a scene position, or -1
+    int capitalAt(double sceneX, double sceneY) {
+        return grid.nearest((sceneX - this.sceneX) / scale, (sceneY - this.sceneY) / scale, HIT_RADIUS / scale);
+    }
+
+    // Enlarges the hovered capital and shows its tooltip at the given screen position
+    void setHovered(int id, double screenX, double screenY) {
+        if (id == hovered) {
+            return;
+        }
+        invalidateCapital(hovered);
+        hovered = id;
+        invalidateCapital(hovered);
+        if (id == -1) {
+            tooltip.hide();
+        } else {
+            tooltip.setText(tooltipText(capitals[id]));
+            tooltip.show(this, screenX + 12, screenY + 12);
+        }
+    }
+
+    void setHighlighted(int id) {
+        if (id == highlighted) {
+            return;
+        }
+        invalidateCapital(highlighted);
+        highlighted = id;
+        invalidateCapital(highlighted);
+    }
+
+    private static String tooltipText(Capital capital) {
+        return String.format("%s\nLatitude: %.2f°%s\nLongitude: %.2f°%s",
+            capital.name,
+            Math.abs(capital.latitude), (capital.latitude >= 0 ? "N" : "S"),
+            Math.abs(capital.longitude), (capital.longitude >= 0 ? "E" : "W")
+        );
+    }
+
+    private void invalidateCapital(int id) {
+        if (id == -1) {
+            return;
+        }
+        double reach = reach();
+        double cx = originX + x[id] * scale;
+        double cy = originY + y[id] * scale;
+        invalidate(cx - reach, cy - reach, cx + reach, cy + reach);
+    }
+
+    // Grows the dirty region and schedules one repaint for all changes made before it runs
+    private void invalidate(double minX, double minY, double maxX, double maxY) {
+        dirtyMinX = Math.min(dirtyMinX, minX);
+        dirtyMinY = Math.min(dirtyMinY, minY);
+        dirtyMaxX = Math.max(dirtyMaxX, maxX);
+        dirtyMaxY = Math.max(dirtyMaxY, maxY);
+        if (!repaintScheduled) {
+            repaintScheduled = true;
+            Platform.runLater(this::repaint);
+        }
+    }
+
+    // How far, in screen pixels, a capital's marker or label reaches from its position
+    private double reach() {
+        double across = (maxLabelWidth * HOVER_FONT_SIZE / LABEL_FONT_SIZE / 2 + LABEL_PADDING) * MARKER_SCALE;
+        double above = HIGHLIGHT_RADIUS * HOVER_GROWTH * MARKER_SCALE * scale + LABEL_GAP * MARKER_SCALE;
+        return Math.max(across, above);
+    }
+
+    private void repaint() {
+        repaintScheduled = false;
+        if (viewChanged) {
+            viewChanged = false;
+            updateView();
+            place();
+        }
+        double minX = Math.max(0, Math.floor(dirtyMinX));
+        double minY = Math.max(0, Math.floor(dirtyMinY));
+        double maxX = Math.min(getWidth(), Math.ceil(dirtyMaxX));
+        double maxY = Math.min(getHeight(), Math.ceil(dirtyMaxY));
+        dirtyMinX = dirtyMinY = Double.POSITIVE_INFINITY;
+        dirtyMaxX = dirtyMaxY = Double.NEGATIVE_INFINITY;
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.save();
+        gc.beginPath();
+        gc.rect(minX, minY, maxX - minX, maxY - minY);
+        gc.clip();
+        gc.clearRect(minX, minY, maxX - minX, maxY - minY);
+
+        // Every placed capital whose marker or label can reach into the dirty region
+        double reach = reach() / scale;
+        double fromX = (minX - originX) / scale - reach;
+        double fromY = (minY - originY) / scale - reach;
+        double toX = (maxX - originX) / scale + reach;
+        double toY = (maxY - originY) / scale + reach;
+        int n = grid.collect(fromX, fromY, toX, toY, found);
+        for (int k = 0; k < n; k++) {
+            int id = found[k];
+            if (markerPlaced[id] == placement && id != hovered && id != highlighted) {
+                drawMarker(gc, id, CAPITAL_COLOR, CAPITAL_RADIUS);
+            }
+        }
+        for (int k = 0; k < n; k++) {
+            int id = found[k];
+            if (labelPlaced[id] == placement && id != hovered && id != highlighted) {
+                drawLabel(gc, id, CAPITAL_RADIUS);
+            }
+        }
+        if (hovered != -1 && hovered != highlighted) {
+            drawMarker(gc, hovered, CAPITAL_COLOR, CAPITAL_RADIUS);
+            drawLabel(gc, hovered, CAPITAL_RADIUS);
+        }
+        if (highlighted != -1) {
+            drawMarker(gc, highlighted, HIGHLIGHT_COLOR, HIGHLIGHT_RADIUS);
+            drawLabel(gc, highlighted, HIGHLIGHT_RADIUS);
+        }
+        gc.restore();
+    }
+
+    private void updateView() {
+        Point2D scene = map.localToScene(0, 0);
+        Point2D origin = sceneToLocal(scene);
+        Point2D unit = sceneToLocal(map.localToScene(1, 0));
+        sceneX = scene.getX();
+        sceneY = scene.getY();
+        originX = origin.getX();
+        originY = origin.getY();
+        scale = unit.getX() - origin.getX();
+    }
+
+    // Decides which markers and labels in the viewport are shown until the view changes again
+    private void place() {
+        placement++;
+        if (placement == Integer.MAX_VALUE) {
+            Arrays.fill(markerPlaced, 0);
+            Arrays.fill(labelPlaced, 0);
+            placement = 1;
+        }
+        double width = getWidth();
+        double height = getHeight();
+        double radius = CAPITAL_RADIUS * MARKER_SCALE * scale;
+        markerCells.reset(width, height, Math.max(1, 2 * radius));
+        labelCells.reset(width, height, LABEL_CELL);
+
+        double margin = radius / scale;
+        int n = grid.collect(-originX / scale - margin, -originY / scale - margin,
+            (width - originX) / scale + margin, (height - originY) / scale + margin, found);
+        for (int k = 0; k < n; k++) {
+            order[k] = rank[found[k]];
+        }
+        Arrays.sort(order, 0, n);
+
+        double labelHeight = LABEL_HEIGHT * MARKER_SCALE;
+        for (int k = 0; k < n; k++) {
+            int id = byPriority[order[k]];
+            double cx = originX + x[id] * scale;
+            double cy = originY + y[id] * scale;
+            if (!markerCells.claim(cx, cy, cx, cy)) {
+                continue; // off screen, or another marker is already drawn here
+            }
+            markerPlaced[id] = placement;
+            double boxWidth = (labelWidth[id] + 2 * LABEL_PADDING) * MARKER_SCALE;
+            double labelY = labelCenterY(cy, CAPITAL_RADIUS);
+            if (labelCells.claim(cx - boxWidth / 2, labelY - labelHeight / 2, cx + boxWidth / 2, labelY + labelHeight / 2)) {
+                labelPlaced[id] = placement;
+            }
+        }
+    }
+
+    private double labelCenterY(double cy, double radius) {
+        return cy - radius * MARKER_SCALE * scale - (LABEL_GAP - LABEL_HEIGHT / 2) * MARKER_SCALE;
+    }
+
+    private void drawMarker(GraphicsContext gc, int id, Color color, double radius) {
+        double size = MARKER_SCALE * scale;
+        double r = (id == hovered ? radius * HOVER_GROWTH : radius) * size;
+        double cx = originX + x[id] * scale;
+        double cy = originY + y[id] * scale;
+        gc.setFill(color);
+        gc.fillOval(cx - r, cy - r, 2 * r, 2 * r);
+        gc.setStroke(Color.WHITE);
+        gc.setLineWidth(size);
+        gc.strokeOval(cx - r, cy - r, 2 * r, 2 * r);
+    }
+
+    // Label centred above the marker, as wide as its text at the font in use
+    private void drawLabel(GraphicsContext gc, int id, double radius) {
+        boolean hover = id == hovered;
+        double textWidth = hover ? labelWidth[id] * HOVER_FONT_SIZE / LABEL_FONT_SIZE : labelWidth[id];
+        double width = (textWidth + 2 * LABEL_PADDING) * MARKER_SCALE;
+        double height = LABEL_HEIGHT * MARKER_SCALE;
+        double cx = originX + x[id] * scale;
+        double labelY = labelCenterY(originY + y[id] * scale, radius);
+        gc.setFill(LABEL_BACKGROUND);
+        gc.fillRoundRect(cx - width / 2, labelY - height / 2, width, height, 6 * MARKER_SCALE, 6 * MARKER_SCALE);
+        gc.setFill(Color.BLACK);
+        gc.setFont(hover ? HOVER_FONT : LABEL_FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText(capitals[id].name, cx, labelY);
+    }
+
+    // Screen cells taken by what has been placed so far; reset in O(1) by generation
+    private static final class Occupancy {
+        private int[] stamp = new int[0];
+        private int generation = 0;
+        private int columns;
+        private int rows;
+        private double cellSize;
+
+        void reset(double width, double height, double cellSize) {
+            this.cellSize = cellSize;
+            columns = (int) Math.ceil(width / cellSize) + 1;
+            rows = (int) Math.ceil(height / cellSize) + 1;
+            if (stamp.length < columns * rows) {
+                stamp = new int[columns * rows];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        // Takes every on-screen cell the rectangle overlaps, unless one is
+        // taken already or the rectangle is entirely off screen
+        boolean claim(double minX, double minY, double maxX, double maxY) {
+            int firstColumn = Math.max(0, (int) Math.floor(minX / cellSize));
+            int lastColumn = Math.min(columns - 1, (int) Math.floor(maxX / cellSize));
+            int firstRow = Math.max(0, (int) Math.floor(minY / cellSize));
+            int lastRow = Math.min(rows - 1, (int) Math.floor(maxY / cellSize));
+            if (firstColumn > lastColumn || firstRow > lastRow) {
+                return false;
+            }
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    if (stamp[r * columns + c] == generation) {
+                        return false;
+                    }
+                }
+            }
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    stamp[r * columns + c] = generation;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import routing.Capital;
+
+// Positions of the capitals on the map image, kept in x and y arrays indexed
+// by capital id that the map layers read directly. The Mercator terms only
+// depend on the coordinates, so they are computed once at load; fitting the
+// map to another size only rescales them, in place, so every reader of the
+// arrays sees the new positions.
+final class MapProjection {
+    private static final double MERCATOR_MAX_LATITUDE = 85.05112878;
+    // Offsets aligning the projection with the map image, tuned at REFERENCE_WIDTH
+    private static final double REFERENCE_WIDTH = 1200;
+    private static final double X_OFFSET = -80; // Negative moves points left, positive moves right
+    private static final double Y_OFFSET = 106; // Positive moves points down, negative moves up
+
+    private final double[] longitude; // normalized to [-180, 180]
+    private final double[] mercator; // ln(tan(pi/4 + latitude/2)), latitude clamped
+    private final double[] x;
+    private final double[] y;
+    private double mapWidth = Double.NaN;
+    private double mapHeight = Double.NaN;
+
+    MapProjection(Capital[] capitals, int count) {
+        longitude = new double[count];
+        mercator = new double[count];
+        x = new double[count];
+        y = new double[count];
+        for (int i = 0; i < count; i++) {
+            double lat = Math.max(Math.min(capitals[i].latitude, MERCATOR_MAX_LATITUDE), -MERCATOR_MAX_LATITUDE);
+            longitude[i] = normalizeLongitude(capitals[i].longitude);
+            mercator[i] = Math.log(Math.tan((Math.PI / 4) + (Math.toRadians(lat) / 2)));
+        }
+    }
+
+    double[] getX() {
+        return x;
+    }
+
+    double[] getY() {
+        return y;
+    }
+
+    // Projects onto a map of the given size; false when it already was
+    boolean resize(double mapWidth, double mapHeight) {
+        if (mapWidth == this.mapWidth && mapHeight == this.mapHeight) {
+            return false;
+        }
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        double xScale = mapWidth / 360;
+        double yScale = mapWidth / (2 * Math.PI);
+        double offsetScale = mapWidth / REFERENCE_WIDTH;
+        for (int i = 0; i < x.length; i++) {
+            x[i] = (longitude[i] + 180) * xScale + X_OFFSET * offsetScale;
+            y[i] = (mapHeight / 2) - mercator[i] * yScale + Y_OFFSET * offsetScale;
+        }
+        return true;
+    }
+
+    private static double normalizeLongitude(double lon) {
+        while (lon > 180) lon -= 360;
+        while (lon < -180) lon += 360;
+        return lon;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+import javafx.application.Platform;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+// Draws the current route as dashed segments on its own canvas above the
+// capitals, so showing another route never repaints a capital marker.
+//
+// A new route is diffed against the one on screen: only the area covered by
+// segments that were removed or added is cleared and redrawn, and segments
+// both routes share are left alone elsewhere, so an update costs what
+// changed rather than the whole map. Scrolling or zooming moves every
+// segment and redraws the whole route.
+class RouteOverlay extends Canvas {
+    private static final Color ROUTE_COLOR = Color.RED;
+    private static final double LINE_WIDTH = 2;
+    private static final double DASH = 10;
+    private static final double GAP = 5;
+
+    private final Node map; // the node the positions are relative to
+    private final double[] x;
+    private final double[] y;
+
+    // Segments of the route on screen as sorted keys, lower capital id first
+    private long[] segments = new long[0];
+    private int segmentCount = 0;
+    private long[] next = new long[0];
+
+    // Map to canvas coordinates: originX + x * scale
+    private double originX = 0;
+    private double originY = 0;
+    private double scale = 1;
+    private boolean viewChanged = true;
+    private boolean redrawScheduled = false;
+
+    RouteOverlay(Node map, double[] x, double[] y) {
+        this.map = map;
+        this.x = x;
+        this.y = y;
+        widthProperty().addListener((obs, oldWidth, width) -> viewChanged());
+        heightProperty().addListener((obs, oldHeight, height) -> viewChanged());
+    }
+
+    // The map moved, was zoomed or the viewport was resized
+    void viewChanged() {
+        viewChanged = true;
+        if (!redrawScheduled) {
+            redrawScheduled = true;
+            Platform.runLater(this::redraw);
+        }
+    }
+
+    // Shows the line through consecutive capital ids, skipping stops that are -1
+    void setRoute(int[] stops, int length) {
+        if (next.length < length) {
+            next = new long[length];
+        }
+        int nextCount = 0;
+        for (int i = 0; i + 1 < length; i++) {
+            int from = stops[i];
+            int to = stops[i + 1];
+            if (from != -1 && to != -1 && from != to) {
+                next[nextCount++] = key(from, to);
+            }
+        }
+        Arrays.sort(next, 0, nextCount);
+        long[] shown = segments;
+        int shownCount = segmentCount;
+        segments = next;
+        segmentCount = nextCount;
+        next = shown;
+        if (viewChanged) {
+            return; // the pending redraw draws the new route in full
+        }
+
+        // Merge the sorted segment lists; what only one of them has is dirty
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        int i = 0;
+        int j = 0;
+        while (i < shownCount || j < segmentCount) {
+            long changed;
+            if (j == segmentCount || (i < shownCount && shown[i] < segments[j])) {
+                changed = shown[i++];
+            } else if (i == shownCount || segments[j] < shown[i]) {
+                changed = segments[j++];
+            } else {
+                i++;
+                j++;
+                continue;
+            }
+            int from = from(changed);
+            int to = to(changed);
+            minX = Math.min(minX, Math.min(x[from], x[to]));
+            minY = Math.min(minY, Math.min(y[from], y[to]));
+            maxX = Math.max(maxX, Math.max(x[from], x[to]));
+            maxY = Math.max(maxY, Math.max(y[from], y[to]));
+        }
+        if (minX > maxX) {
+            return; // same route
+        }
+        double margin = LINE_WIDTH * scale / 2 + 1;
+        redraw(originX + minX * scale - margin, originY + minY * scale - margin,
+            originX + maxX * scale + margin, originY + maxY * scale + margin);
+    }
+
+    void clearRoute() {
+        setRoute(null, 0);
+    }
+
+    private void redraw() {
+        redrawScheduled = false;
+        if (viewChanged) {
+            viewChanged = false;
+            Point2D origin = sceneToLocal(map.localToScene(0, 0));
+            Point2D unit = sceneToLocal(map.localToScene(1, 0));
+            originX = origin.getX();
+            originY = origin.getY();
+            scale = unit.getX() - origin.getX();
+        }
+        redraw(0, 0, getWidth(), getHeight());
+    }
+
+    // Clears the canvas region and redraws the route segments crossing it
+    private void redraw(double minX, double minY, double maxX, double maxY) {
+        minX = Math.max(0, Math.floor(minX));
+        minY = Math.max(0, Math.floor(minY));
+        maxX = Math.min(getWidth(), Math.ceil(maxX));
+        maxY = Math.min(getHeight(), Math.ceil(maxY));
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.save();
+        gc.beginPath();
+        gc.rect(minX, minY, maxX - minX, maxY - minY);
+        gc.clip();
+        gc.clearRect(minX, minY, maxX - minX, maxY - minY);
+        gc.setStroke(ROUTE_COLOR);
+        gc.setLineWidth(LINE_WIDTH * scale);
+        gc.setLineDashes(DASH * scale, GAP * scale);
+        double margin = LINE_WIDTH * scale / 2 + 1;
+        for (int k = 0; k < segmentCount; k++) {
+            int from = from(segments[k]);
+            int to = to(segments[k]);
+            double x1 = originX + x[from] * scale;
+            double y1 = originY + y[from] * scale;
+            double x2 = originX + x[to] * scale;
+            double y2 = originY + y[to] * scale;
+            if (Math.max(x1, x2) + margin >= minX && Math.min(x1, x2) - margin <= maxX
+                    && Math.max(y1, y2) + margin >= minY && Math.min(y1, y2) - margin <= maxY) {
+                gc.strokeLine(x1, y1, x2, y2);
+            }
+        }
+        gc.restore();
+    }
+
+    // Undirected, so a route flown the other way keeps its segments
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private static int from(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int to(long key) {
+        return (int) key;
+    }
+}
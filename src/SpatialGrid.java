@@ -0,0 +1,111 @@
+// Uniform grid over a fixed set of points, bucketed once so rectangle and
+// radius queries only look at the cells they overlap. Cells are stored
+// CSR-style: the points of cell c are items[cellStart[c] .. cellStart[c + 1]).
+final class SpatialGrid {
+    private static final int MAX_CELLS = 1 << 20;
+
+    private final double[] x;
+    private final double[] y;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] items;
+
+    SpatialGrid(double[] x, double[] y, int count, double cellSize) {
+        this.x = x;
+        this.y = y;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minX = Math.min(minX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxX = Math.max(maxX, x[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        if (count == 0) {
+            minX = minY = maxX = maxY = 0;
+        }
+        // Coarser cells when the points spread too far for the cell budget
+        while ((Math.floor((maxX - minX) / cellSize) + 1) * (Math.floor((maxY - minY) / cellSize) + 1) > MAX_CELLS) {
+            cellSize *= 2;
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        columns = (int) ((maxX - minX) / cellSize) + 1;
+        rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        cellStart = new int[columns * rows + 1];
+        int[] cellOf = new int[count];
+        for (int i = 0; i < count; i++) {
+            cellOf[i] = row(y[i]) * columns + column(x[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        items = new int[count];
+        int[] next = new int[columns * rows];
+        for (int i = 0; i < count; i++) {
+            items[cellStart[cellOf[i]] + next[cellOf[i]]++] = i;
+        }
+    }
+
+    // Writes the points of every cell overlapping the rectangle into out and
+    // returns how many; points near the edges may lie just outside it
+    int collect(double fromX, double fromY, double toX, double toY, int[] out) {
+        if (toX < fromX || toY < fromY) {
+            return 0;
+        }
+        int firstColumn = column(fromX);
+        int lastColumn = column(toX);
+        int lastRow = row(toY);
+        int found = 0;
+        for (int r = row(fromY); r <= lastRow; r++) {
+            int start = cellStart[r * columns + firstColumn];
+            int end = cellStart[r * columns + lastColumn + 1];
+            // Cells of one row are contiguous, so the whole run is copied at once
+            System.arraycopy(items, start, out, found, end - start);
+            found += end - start;
+        }
+        return found;
+    }
+
+    // The point closest to (px, py) no further than radius away, or -1
+    int nearest(double px, double py, double radius) {
+        int lastColumn = column(px + radius);
+        int lastRow = row(py + radius);
+        int best = -1;
+        double bestDistance = radius * radius;
+        for (int r = row(py - radius); r <= lastRow; r++) {
+            for (int c = column(px - radius); c <= lastColumn; c++) {
+                int cell = r * columns + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int i = items[k];
+                    double dx = x[i] - px;
+                    double dy = y[i] - py;
+                    double distance = dx * dx + dy * dy;
+                    if (distance <= bestDistance) {
+                        bestDistance = distance;
+                        best = i;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    // Clamped, so queries reaching past the points use the edge cells
+    private int column(double px) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((px - minX) / cellSize)));
+    }
+
+    private int row(double py) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((py - minY) / cellSize)));
+    }
+}
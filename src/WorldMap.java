@@ -7,52 +7,78 @@ import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import java.io.*;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import routing.AllPairsTable;
+import routing.Capital;
+import routing.Criterion;
+import routing.FlightDataLoader;
+import routing.ParetoPathResult;
+import routing.PathResult;
+import routing.RouteNetwork;
 
 
 public class WorldMap extends Application {
     private Capital[] capitals;
     private int capitalCount = 0;
-    private static final int MAX_CAPITALS = 200;
+    private final Map<Capital, Integer> capitalIds = new IdentityHashMap<>(); // index into capitals
     private ComboBox<Capital> sourceCombo;
     private ComboBox<Capital> targetCombo;
     private boolean isSelectingSource = true;
     private Pane mapPane;
     private ImageView mapView;
-    private Group mapGroup;
+    private MapProjection projection;
+    private MapCanvas mapCanvas;
+    private RouteOverlay routeOverlay;
     private ScrollPane scrollPane;
     private double currentScale = 1.0;
     private Group contentGroup;
     private double initialWidth = 1200;
     private double initialHeight = 700;
-    private FlightGraph flightGraph;
+    private RouteNetwork network;
+    // Route searches run here so a slow one never freezes the window
+    private final ExecutorService routeExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "route-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> pendingRoute;
+    private long routeRequest = 0; // bumped on every Run; only the latest request may publish
     
-    private static final double MERCATOR_MAX_LATITUDE = 85.05112878;
     private static final String MAP_IMAGE_PATH = "map.png";
+    // Up to this many cities every route is precomputed; 2,000 cities take about 72 MB
+    private static final int TABLE_MAX_CITIES = 2000;
+    private static final String COST_VS_TIME = "Cost vs Time"; // lists the Pareto front instead of one route
     private static final String CAPITALS_FILE_PATH = "C:\\Users\\HP\\Desktop\\World Map\\Map\\Capital Coordinates.txt";
     
     @Override
     public void start(Stage primaryStage) {
-        capitals = new Capital[MAX_CAPITALS];
-        loadCapitals(); // Load capitals first
-        loadFlightData(); // Add this line to load flight data
+        if (!loadNetwork()) {
+            Platform.exit();
+            return;
+        }
         initializeUI(primaryStage); 
-        plotAllCapitals();
+    }
+
+    @Override
+    public void stop() {
+        routeExecutor.shutdownNow();
     }
 
     private void initializeUI(Stage primaryStage) {
         // Initialize components
-        mapGroup = new Group();
         mapPane = new Pane();
         mapPane.setPadding(new Insets(20));
         
@@ -88,6 +114,9 @@ public class WorldMap extends Application {
         scrollPane.setFitToWidth(false);
         scrollPane.setFitToHeight(false);
         
+        // Capitals and the route are drawn on canvases over the map
+        createMapLayers();
+        
         // Create main layout container
         VBox mainContainer = createMainContainer();
         
@@ -147,7 +176,8 @@ public class WorldMap extends Application {
         mapContainer.setMinWidth(initialWidth);
         
         HBox zoomControls = createZoomControls();
-        mapContainer.getChildren().addAll(scrollPane, zoomControls);
+        StackPane mapStack = new StackPane(scrollPane, mapCanvas, routeOverlay);
+        mapContainer.getChildren().addAll(mapStack, zoomControls);
         
         return mapContainer;
     }
@@ -256,7 +286,8 @@ private Capital[] filterCapitals(String searchText) {
         filterCombo.setItems(FXCollections.observableArrayList(
             "Shortest Distance",
             "Less Time",
-            "Less Cost"
+            "Less Cost",
+            COST_VS_TIME
         ));
         filterCombo.setValue("Shortest Distance");
         filterCombo.setMaxWidth(Double.MAX_VALUE);
@@ -332,6 +363,9 @@ private Capital[] filterCapitals(String searchText) {
         Capital source = sourceCombo.getValue();
         Capital target = targetCombo.getValue();
         
+        // A newer request supersedes whatever is still being searched
+        cancelPendingRoute();
+        
         // Clear previous results
         pathDisplay.getChildren().clear();
         distanceField.clear();
@@ -351,7 +385,7 @@ private Capital[] filterCapitals(String searchText) {
 
         String filter = filterCombo.getValue();
 
-        // Clear previous path
+        // The previous path stays until the new one replaces it
         resetMap();
         
         // Calculate and display path
@@ -360,76 +394,152 @@ private Capital[] filterCapitals(String searchText) {
 
 
     private void calculatePath(Capital source, Capital target, String filter, 
-    VBox pathDisplay, TextField distanceField, 
-    TextField costField, TextField timeField) {
-// Clear previous results
-pathDisplay.getChildren().clear();
-
-PathResult result = findShortestPath(source.name, target.name, filter);
-
-// Create path text
-StringBuilder pathText = new StringBuilder();
-for (int i = 0; i < result.pathLength; i++) {
-if (i > 0) pathText.append(" → ");
-pathText.append(result.path[i]);
-}
-
-Label pathLabel = new Label(pathText.toString());
-pathLabel.setWrapText(true);
-pathDisplay.getChildren().add(pathLabel);
-
-// Draw lines for the path
-for (int i = 0; i < result.pathLength - 1; i++) {
-Capital sourceCap = findCapitalByName(result.path[i]);
-Capital targetCap = findCapitalByName(result.path[i + 1]);
-drawPathLine(sourceCap, targetCap);
-}
+            VBox pathDisplay, TextField distanceField, 
+            TextField costField, TextField timeField) {
+        // Clear previous results
+        pathDisplay.getChildren().clear();
+        pathDisplay.getChildren().add(new Label("Searching..."));
+
+        long request = ++routeRequest;
+        pendingRoute = routeExecutor.submit(() -> {
+            // Cost vs Time lists every trade-off, cheapest first, and draws the cheapest
+            PathResult[] options;
+            PathResult result;
+            if (COST_VS_TIME.equals(filter)) {
+                ParetoPathResult front = network.findParetoRoutes(source.name, target.name);
+                options = front.routes;
+                result = front;
+            } else {
+                result = network.findShortestPath(source.name, target.name, Criterion.fromLabel(filter));
+                options = new PathResult[] { result };
+            }
+            Platform.runLater(() -> {
+                if (request == routeRequest) {
+                    showPath(options, result, pathDisplay, distanceField, costField, timeField);
+                }
+            });
+        });
+    }
 
-// Update the metrics
-double distance = calculateTotalDistance(result.path, result.pathLength);
-distanceField.setText(String.format("%.2f km", distance));
-costField.setText(String.format("$%.2f", result.totalCost));
-timeField.setText(String.format("%d minutes", result.totalDuration));
-}
+    // Interrupts a running search, which stops within its next thousand cities
+    private void cancelPendingRoute() {
+        routeRequest++;
+        if (pendingRoute != null) {
+            pendingRoute.cancel(true);
+            pendingRoute = null;
+        }
+    }
 
-private void drawPathLine(Capital source, Capital target) {
-    double[] sourcePos = calculateCapitalPosition(source);
-    double[] targetPos = calculateCapitalPosition(target);
-    
-    Line pathLine = new Line(sourcePos[0], sourcePos[1], targetPos[0], targetPos[1]);
-    pathLine.setStroke(Color.RED);
-    pathLine.setStrokeWidth(2);
-    pathLine.getStrokeDashArray().addAll(10.0, 5.0);
-    
-    mapPane.getChildren().add(pathLine);
-}
+    // Runs on the FX thread once the search for the current request is done
+    private void showPath(PathResult[] options, PathResult result, VBox pathDisplay,
+            TextField distanceField, TextField costField, TextField timeField) {
+        pendingRoute = null;
+        pathDisplay.getChildren().clear();
 
-private double calculateDistance(Capital source, Capital target) {
-    final int R = 6371; // Earth's radius in kilometers
+        for (PathResult option : options) {
+            // Create path text
+            StringBuilder pathText = new StringBuilder();
+            if (option != result) { // a Pareto option, so label its trade-off
+                pathText.append(String.format("$%.2f, %d minutes: ", option.totalCost, option.totalDuration));
+            }
+            for (int i = 0; i < option.pathLength; i++) {
+                if (i > 0) pathText.append(" → ");
+                pathText.append(option.path[i]);
+            }
 
-    double lat1 = Math.toRadians(source.latitude);
-    double lon1 = Math.toRadians(source.longitude);
-    double lat2 = Math.toRadians(target.latitude);
-    double lon2 = Math.toRadians(target.longitude);
+            Label pathLabel = new Label(pathText.toString());
+            pathLabel.setWrapText(true);
+            pathDisplay.getChildren().add(pathLabel);
+        }
 
-    double dLat = lat2 - lat1;
-    double dLon = lon2 - lon1;
+        // Draw lines for the path
+        int[] stops = new int[result.pathLength];
+        for (int i = 0; i < result.pathLength; i++) {
+            Capital stop = network.findCapitalByName(result.path[i]);
+            stops[i] = stop == null ? -1 : capitalIds.get(stop);
+        }
+        routeOverlay.setRoute(stops, result.pathLength);
 
-    double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
-               Math.cos(lat1) * Math.cos(lat2) *
-               Math.sin(dLon/2) * Math.sin(dLon/2);
-    
-    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
-    
-    return R * c;
-}
+        // Update the metrics
+        distanceField.setText(String.format("%.2f km", result.totalDistance));
+        costField.setText(String.format("$%.2f", result.totalCost));
+        timeField.setText(String.format("%d minutes", result.totalDuration));
+    }
 
 private void resetMap() {
-    mapPane.getChildren().clear();
-    mapPane.getChildren().add(mapView);
-    plotAllCapitals();
+    mapCanvas.setHighlighted(-1);
 }
     
+    private void createMapLayers() {
+        // Capitals are projected once here, and again only when the map is fitted to another size
+        projection = new MapProjection(capitals, capitalCount);
+        projection.resize(mapView.getFitWidth(), mapView.getFitHeight());
+        double[] x = projection.getX();
+        double[] y = projection.getY();
+        
+        int[] flightCounts = new int[capitalCount]; // busier capitals keep their labels when zoomed out
+        int[] offsets = network.getGraph().getOffsets();
+        for (int i = 0; i < capitalCount; i++) {
+            int city = network.getGraph().getCityIndexByName(capitals[i].name);
+            flightCounts[i] = offsets[city + 1] - offsets[city];
+        }
+        mapCanvas = new MapCanvas(mapPane, capitals, capitalCount, x, y, flightCounts);
+        routeOverlay = new RouteOverlay(mapPane, x, y);
+        coverViewport(mapCanvas);
+        coverViewport(routeOverlay);
+        // Fires after layout whenever scrolling or zooming moves the map
+        mapPane.localToSceneTransformProperty().addListener((obs, oldTransform, transform) -> {
+            mapCanvas.viewChanged();
+            routeOverlay.viewChanged();
+        });
+        mapView.fitWidthProperty().addListener((obs, oldWidth, width) -> refitProjection());
+        mapView.fitHeightProperty().addListener((obs, oldHeight, height) -> refitProjection());
+        
+        scrollPane.setOnMouseMoved(e -> mapCanvas.setHovered(
+            mapCanvas.capitalAt(e.getSceneX(), e.getSceneY()), e.getScreenX(), e.getScreenY()));
+        scrollPane.setOnMouseExited(e -> mapCanvas.setHovered(-1, 0, 0));
+        scrollPane.setOnMouseClicked(e -> {
+            int id = mapCanvas.capitalAt(e.getSceneX(), e.getSceneY());
+            if (id != -1 && e.isStillSincePress()) { // not the end of a pan
+                selectCapital(capitals[id]);
+            }
+        });
+    }
+    
+    private void refitProjection() {
+        if (projection.resize(mapView.getFitWidth(), mapView.getFitHeight())) {
+            mapCanvas.positionsChanged();
+            routeOverlay.viewChanged();
+        }
+    }
+    
+    // Keeps a canvas over the scroll pane's viewport. Mouse events pass
+    // through it, so panning still works; hit-testing is done on the scroll pane.
+    private void coverViewport(Canvas canvas) {
+        canvas.setMouseTransparent(true);
+        StackPane.setAlignment(canvas, Pos.TOP_LEFT);
+        scrollPane.viewportBoundsProperty().addListener((obs, oldBounds, bounds) -> {
+            canvas.setTranslateX(scrollPane.getInsets().getLeft());
+            canvas.setTranslateY(scrollPane.getInsets().getTop());
+            canvas.setWidth(bounds.getWidth());
+            canvas.setHeight(bounds.getHeight());
+        });
+    }
+    
+    private void selectCapital(Capital capital) {
+        if (isSelectingSource) {
+            // Set source
+            sourceCombo.setValue(capital);
+            isSelectingSource = false;
+        } else {
+            // Set target if it's not the same as source
+            if (capital != sourceCombo.getValue()) {
+                targetCombo.setValue(capital);
+                isSelectingSource = true;
+            }
+        }
+    }
+    
     private boolean loadMapImage() {
         try {
             Image mapImage = new Image(new FileInputStream("C:\\Users\\HP\\Desktop\\World Map\\Map\\src\\map.png"));
@@ -452,147 +562,40 @@ private void resetMap() {
         }
     }
     
-    private void loadCapitals() {
-        try (BufferedReader br = new BufferedReader(new FileReader(CAPITALS_FILE_PATH))) {
-            String line;
-            while ((line = br.readLine()) != null && capitalCount < MAX_CAPITALS) {
-                try {
-                    String[] parts = line.split(",");
-                    if (parts.length >= 3) {
-                        // The first part is the name
-                        String name = parts[0].trim();
-                        
-                        // Make sure we have valid coordinates
-                        try {
-                            double lat = Double.parseDouble(parts[1].trim());
-                            double lon = Double.parseDouble(parts[2].trim());
-                            capitals[capitalCount++] = new Capital(name, lat, lon);
-                        } catch (NumberFormatException e) {
-                            System.err.println("Invalid coordinates for capital: " + name);
-                            continue;
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error processing line: " + line);
-                    e.printStackTrace();
-                }
-            }
+    private boolean loadNetwork() {
+        try {
+            network = FlightDataLoader.load(CAPITALS_FILE_PATH);
         } catch (IOException e) {
             showErrorDialog("Error Loading Capitals", 
-                          "Failed to load capitals data from: " + CAPITALS_FILE_PATH + "\nError: " + e.getMessage());}
+                          "Failed to load capitals data from: " + CAPITALS_FILE_PATH + "\nError: " + e.getMessage());
+            return false;
         }
-    private void plotAllCapitals() {
+        precomputeRoutes();
+        capitals = network.getCapitals();
+        capitalCount = capitals.length;
         for (int i = 0; i < capitalCount; i++) {
-            plotCapital(capitals[i], Color.PURPLE, 2);
+            capitalIds.put(capitals[i], i);
         }
+        return true;
     }
-    
-    private void plotCapital(Capital capital, Color color, double radius) {
-    double[] coords = calculateCapitalPosition(capital);
-    double x = coords[0];
-    double y = coords[1];
-    
-    Circle point = createCapitalPoint(x, y, radius, color);
-    Label nameLabel = createCapitalLabel(capital.name, x, y, radius);
-    Tooltip tooltip = createCapitalTooltip(capital);
-    
-    Tooltip.install(point, tooltip);
-    setupCapitalInteractions(point, nameLabel, radius, color, capital);
-    
-    mapPane.getChildren().addAll(point, nameLabel);
-    bindScaling(point, nameLabel);
-}
-    
-    private double[] calculateCapitalPosition(Capital capital) {
-        double mapWidth = 1200;
-        double mapHeight = 700;
-        
-        double lat = Math.max(Math.min(capital.latitude, MERCATOR_MAX_LATITUDE), -MERCATOR_MAX_LATITUDE);
-        double lon = normalizeLongitude(capital.longitude);
-        
-        // Add offset values to adjust position
-        double xOffset = -80;  // Negative moves points left, positive moves right
-        double yOffset = 106;   // Positive moves points down, negative moves up
-        
-        // Calculate x coordinate with offset
-        double x = (lon + 180) * (mapWidth / 360) + xOffset;
-        
-        // Calculate y coordinate with Mercator projection and offset
-        double latRad = Math.toRadians(lat);
-        double mercN = Math.log(Math.tan((Math.PI/4) + (latRad/2)));
-        double y = (mapHeight/2) - (mapWidth * mercN/(2*Math.PI)) + yOffset;
-        
-        return new double[]{x, y};
-    }
-    
-    private double normalizeLongitude(double lon) {
-        while (lon > 180) lon -= 360;
-        while (lon < -180) lon += 360;
-        return lon;
-    }
-    
-    private Circle createCapitalPoint(double x, double y, double radius, Color color) {
-        Circle point = new Circle(x, y, radius, color);
-        point.setStroke(Color.WHITE);
-        point.setStrokeWidth(1);
-        return point;
-    }
-    
-    private Label createCapitalLabel(String name, double x, double y, double radius) {
-        Label nameLabel = new Label(name);
-        nameLabel.getStyleClass().add("capital-label");
-        nameLabel.setTextFill(Color.BLACK);
-        
-        Platform.runLater(() -> {
-            nameLabel.setLayoutX(x - nameLabel.getWidth() / 2);
-            nameLabel.setLayoutY(y - radius - 20);
-        });
-        
-        return nameLabel;
-    }
-    
-    private Tooltip createCapitalTooltip(Capital capital) {
-        return new Tooltip(String.format("%s\nLatitude: %.2f°%s\nLongitude: %.2f°%s",
-            capital.name,
-            Math.abs(capital.latitude), (capital.latitude >= 0 ? "N" : "S"),
-            Math.abs(capital.longitude), (capital.longitude >= 0 ? "E" : "W")
-        ));
-    }
-    
-    private void setupCapitalInteractions(Circle point, Label nameLabel, double radius, Color color, Capital capital) {
-        point.setOnMouseClicked(e -> {
-            if (isSelectingSource) {
-                // Set source
-                sourceCombo.setValue(capital);
-                isSelectingSource = false;
-            } else {
-                // Set target if it's not the same as source
-                if (capital != sourceCombo.getValue()) {
-                    targetCombo.setValue(capital);
-                    isSelectingSource = true;
-                }
-            }
-        });
-        
-        // Simple hover effect just for visual feedback
-        point.setOnMouseEntered(e -> {
-            point.setRadius(radius * 1.5);
-            nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 12));
-        });
-        
-        point.setOnMouseExited(e -> {
-            point.setRadius(radius);
-            nameLabel.setFont(Font.font("Arial", FontWeight.BOLD, 10));
-        });
-    }
-    
-    private void bindScaling(Circle point, Label nameLabel) {
-        point.scaleXProperty().bind(mapGroup.scaleXProperty().multiply(-0.2).add(1));
-        point.scaleYProperty().bind(mapGroup.scaleYProperty().multiply(-0.2).add(1));
-        nameLabel.scaleXProperty().bind(mapGroup.scaleXProperty().multiply(-0.2).add(1));
-        nameLabel.scaleYProperty().bind(mapGroup.scaleYProperty().multiply(-0.2).add(1));
+
+    // On small networks, builds the all-pairs table in the background and
+    // installs it on the route-search thread, between searches. Routes are
+    // searched until it is ready, and always on larger networks or if the
+    // build fails.
+    private void precomputeRoutes() {
+        if (network.getGraph().getCityCount() > TABLE_MAX_CITIES) {
+            return;
+        }
+        network.getGraph().getEdgeCount(); // packs the graph here, so the build only reads it
+        CompletableFuture.supplyAsync(() -> AllPairsTable.build(network.getGraph()))
+            .thenAcceptAsync(network::setEngine, routeExecutor)
+            .exceptionally(e -> {
+                e.printStackTrace();
+                return null;
+            });
     }
-    
+
     private void setupZoomHandlers() {
         scrollPane.setOnScroll(event -> {
             if (event.isControlDown()) {
@@ -668,10 +671,8 @@ private void resetMap() {
     }
     
     private void highlightCapitalWithoutZoom(Capital capital) {
-        mapPane.getChildren().clear();
-        mapPane.getChildren().add(mapView);
-        plotAllCapitals();
-        plotCapital(capital, Color.BLUE, 6);
+        routeOverlay.clearRoute();
+        mapCanvas.setHighlighted(capitalIds.get(capital));
     }
     
    // Add this helper method if not already present
@@ -683,168 +684,6 @@ private void showErrorDialog(String header, String content) {
     alert.showAndWait();
 }
 
-private void loadFlightData() {
-    flightGraph = new FlightGraph();
-    try (BufferedReader br = new BufferedReader(new FileReader("C:\\Users\\HP\\Desktop\\World Map\\Map\\Capital Coordinates.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 4) {
-                String source = parts[0].trim();
-                String destination = parts[1].trim();
-                double cost = Double.parseDouble(parts[2].replace("$", "").trim());
-                int duration = Integer.parseInt(parts[3].replace("min", "").trim());
-                
-                flightGraph.addFlight(source, destination, cost, duration);
-            }
-        }
-    } catch (IOException e) {
-        showErrorDialog("Error Loading Flight Data", "Failed to load flight data");
-    }
-}
-
-private PathResult findShortestPath(String source, String destination, String criteria) {
-    int n = flightGraph.getCityCount();
-    double[] distances = new double[n];
-    boolean[] visited = new boolean[n];
-    int[] previous = new int[n];
-    double[] costs = new double[n];
-    int[] durations = new int[n];
-    
-    // Initialize arrays
-    for (int i = 0; i < n; i++) {
-        distances[i] = Double.POSITIVE_INFINITY;
-        previous[i] = -1;
-        costs[i] = 0;
-        durations[i] = 0;
-    }
-    
-    int sourceIdx = flightGraph.getCityIndexByName(source);
-    int destIdx = flightGraph.getCityIndexByName(destination);
-    
-    // Validate source and destination
-    if (sourceIdx == -1 || destIdx == -1) {
-        System.err.println("Invalid source or destination city");
-        System.err.println("Source: " + source + " (index: " + sourceIdx + ")");
-        System.err.println("Destination: " + destination + " (index: " + destIdx + ")");
-        return new PathResult(0); // Return empty path
-    }
-    
-    distances[sourceIdx] = 0;
-    
-    while (true) {
-        double minDist = Double.POSITIVE_INFINITY;
-        int current = -1;
-        
-        for (int i = 0; i < n; i++) {
-            if (!visited[i] && distances[i] < minDist) {
-                minDist = distances[i];
-                current = i;
-            }
-        }
-        
-        if (current == -1 || current == destIdx) break;
-        
-        visited[current] = true;
-        
-        for (int next = 0; next < n; next++) {
-            Flight flight = flightGraph.getDirectFlight(current, next);
-            if (flight != null && !visited[next]) {
-                String currentCity = flightGraph.getCity(current);
-                String nextCity = flightGraph.getCity(next);
-                
-                // Debug logging
-                System.out.println("Checking flight: " + currentCity + " -> " + nextCity);
-                
-                Capital currentCapital = findCapitalByName(currentCity);
-                Capital nextCapital = findCapitalByName(nextCity);
-                
-                // Skip if either capital is not found
-                if (currentCapital == null || nextCapital == null) {
-                    System.err.println("Warning: Could not find capital data for " + 
-                        (currentCapital == null ? currentCity : nextCity));
-                    continue;
-                }
-                
-                double newDistance;
-                switch (criteria) {
-                    case "Less Cost":
-                        newDistance = costs[current] + flight.cost;
-                        break;
-                    case "Less Time":
-                        newDistance = durations[current] + flight.duration;
-                        break;
-                    default: // Shortest Distance
-                        newDistance = distances[current] + calculateDistance(currentCapital, nextCapital);
-                        break;
-                }
-                
-                if (newDistance < distances[next]) {
-                    distances[next] = newDistance;
-                    previous[next] = current;
-                    costs[next] = costs[current] + flight.cost;
-                    durations[next] = durations[current] + flight.duration;
-                }
-            }
-        }
-    }
-    
-    // Validate path exists
-    if (distances[destIdx] == Double.POSITIVE_INFINITY) {
-        System.err.println("No valid path found between " + source + " and " + destination);
-        return new PathResult(0); // Return empty path
-
-    }
-    
-    // Reconstruct path
-    PathResult result = new PathResult(n);
-    int current = destIdx;
-    
-    while (current != -1) {
-        String cityName = flightGraph.getCity(current);
-        // Validate city exists in capitals
-        if (findCapitalByName(cityName) == null) {
-            System.err.println("Warning: City in path not found in capitals: " + cityName);
-        }
-        result.path[result.pathLength++] = cityName;
-        current = previous[current];
-    }
-    
-    // Reverse the path
-    for (int i = 0; i < result.pathLength / 2; i++) {
-        String temp = result.path[i];
-        result.path[i] = result.path[result.pathLength - 1 - i];
-        result.path[result.pathLength - 1 - i] = temp;
-    }
-    
-    result.totalCost = costs[destIdx];
-    result.totalDuration = durations[destIdx];
-    
-    return result;
-}
-
-// Update findCapitalByName to be case-insensitive and trim whitespace
-private Capital findCapitalByName(String name) {
-    if (name == null) return null;
-    String searchName = name.trim();
-    for (int i = 0; i < capitalCount; i++) {
-        if (capitals[i].name.trim().equalsIgnoreCase(searchName)) {
-            return capitals[i];
-        }
-    }
-    System.err.println("Capital not found: " + name);
-    return null;
-}
-
-private double calculateTotalDistance(String[] path, int pathLength) {
-    double totalDistance = 0;
-    for (int i = 0; i < pathLength - 1; i++) {
-        Capital source = findCapitalByName(path[i]);
-        Capital target = findCapitalByName(path[i + 1]);
-        totalDistance += calculateDistance(source, target);
-    }
-    return totalDistance;
-}
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,110 @@
+package routing;
+
+// A* search: Dijkstra ordered by distance-so-far plus a lower bound on the
+// distance still to go, so cities away from the target are rarely settled.
+// A city whose distance improves after it was expanded is queued again,
+// which keeps routes optimal even where the bound is admissible but not
+// consistent (e.g. cities without coordinates, which get a bound of 0).
+public class AStarEngine implements ShortestPathEngine {
+    private static final int DEFAULT_ARITY = 4;
+
+    private final FlightGraph graph;
+    private final LowerBound bound;
+    private final WorkspacePool workspaces;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public AStarEngine(FlightGraph graph) {
+        this(graph, new GreatCircleBound(graph));
+    }
+
+    public AStarEngine(FlightGraph graph, LowerBound bound) {
+        this.graph = graph;
+        this.bound = bound;
+        this.workspaces = new WorkspacePool(DEFAULT_ARITY);
+    }
+
+    @Override
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    public LowerBound getBound() {
+        return bound;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route) {
+        route.clear();
+        int n = graph.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return false;
+        }
+
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int settledCount = 0;
+        int relaxedCount = 0;
+        int heapOperations = 1;
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        SearchWorkspace workspace = workspaces.get(n);
+        IndexedDaryHeap heap = workspace.heap();
+
+        workspace.reach(sourceIdx, 0, -1, -1);
+        double sourceKey = estimate(workspace, sourceIdx, destIdx, criterion);
+        if (sourceKey < Double.POSITIVE_INFINITY) {
+            heap.insertOrDecrease(sourceIdx, sourceKey);
+        }
+
+        boolean found = false;
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            heapOperations++;
+            if (current == destIdx) {
+                found = true;
+                break;
+            }
+            if (Cancellation.requested(++settledCount)) {
+                break;
+            }
+
+            double base = workspace.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                double candidate = base + weights[e];
+                relaxedCount++;
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, current, e);
+                    double key = candidate + estimate(workspace, next, destIdx, criterion);
+                    // An infinite bound proves the target unreachable from next
+                    if (key < Double.POSITIVE_INFINITY) {
+                        heap.insertOrDecrease(next, key);
+                        heapOperations++;
+                    }
+                }
+            }
+        }
+
+        if (found) {
+            route.setFromWorkspace(graph, workspace, destIdx);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(settledCount, relaxedCount, heapOperations, System.nanoTime() - start);
+        }
+        return found;
+    }
+
+    // Each city's bound is computed once per query, however often it improves
+    private double estimate(SearchWorkspace workspace, int city, int destIdx, Criterion criterion) {
+        if (!workspace.hasEstimate(city)) {
+            workspace.storeEstimate(city, bound.estimate(city, destIdx, criterion));
+        }
+        return workspace.estimate(city);
+    }
+}
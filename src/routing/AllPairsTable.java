@@ -0,0 +1,285 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Every shortest route of a small network, precomputed per criterion, so a
+// query is a table walk instead of a search. For each criterion it keeps a
+// float distance matrix and a next-hop matrix holding, for every city and
+// target, the slot of the first flight to take within the city's CSR row.
+// Any route is rebuilt in O(route length) by following those slots.
+//
+// Both matrices are laid out [target * cityCount + city], so a build step
+// fills one contiguous row and a route walk reads from a single row. Slots
+// are stored as shorts unless some city has more flights than fit.
+//
+// Memory grows with the square of the city count: a float and a short,
+// 6 bytes, per pair and criterion, so about 18 MB for 1,000 cities over the
+// three criteria; 8 bytes and about 24 MB when slots need ints. The table
+// describes the graph as it was when built.
+public class AllPairsTable implements ShortestPathEngine {
+    public enum Algorithm {
+        // One Dijkstra search per target city, run in parallel; best for sparse graphs
+        DIJKSTRA,
+        // Floyd-Warshall over cache-sized tiles, with each phase's tiles run in
+        // parallel; O(n^3) whatever the edge count, so it suits dense graphs
+        FLOYD_WARSHALL
+    }
+
+    private static final int ARITY = 4;
+    private static final int TILE = 64;
+    private static final int MAX_CITIES = 46340; // cityCount^2 must fit in an array
+    private static final int NO_HOP = -1;
+
+    private final FlightGraph graph;
+    private final int cityCount;
+    private final float[][] distances; // [criterion][target * cityCount + city]
+    private final short[][] hops;      // same layout, null when slots need ints
+    private final int[][] wideHops;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    private AllPairsTable(FlightGraph graph, boolean wide) {
+        this.graph = graph;
+        this.cityCount = graph.getCityCount();
+        int criteria = Criterion.values().length;
+        int cells = cityCount * cityCount;
+        distances = new float[criteria][cells];
+        hops = wide ? null : new short[criteria][cells];
+        wideHops = wide ? new int[criteria][cells] : null;
+    }
+
+    public static AllPairsTable build(FlightGraph graph) {
+        return build(graph, Algorithm.DIJKSTRA, ForkJoinPool.commonPool());
+    }
+
+    public static AllPairsTable build(FlightGraph graph, Algorithm algorithm, ForkJoinPool pool) {
+        int n = graph.getCityCount();
+        if (n > MAX_CITIES) {
+            throw new IllegalArgumentException("Too many cities for an all-pairs table: " + n);
+        }
+        int[] offsets = graph.getOffsets();
+        int maxDegree = 0;
+        for (int city = 0; city < n; city++) {
+            maxDegree = Math.max(maxDegree, offsets[city + 1] - offsets[city]);
+        }
+        AllPairsTable table = new AllPairsTable(graph, maxDegree > Short.MAX_VALUE);
+        if (algorithm == Algorithm.DIJKSTRA) {
+            table.buildWithDijkstra(pool);
+        } else {
+            table.buildWithFloydWarshall(pool);
+        }
+        return table;
+    }
+
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    // Length of the shortest route under the criterion, infinite when there is none.
+    // Rounded to float precision; routes rebuilt by findRoute carry exact totals.
+    public double distance(int sourceIdx, int destIdx, Criterion criterion) {
+        return distances[criterion.ordinal()][destIdx * cityCount + sourceIdx];
+    }
+
+    @Override
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route) {
+        route.clear();
+        int n = cityCount;
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return false;
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int table = criterion.ordinal();
+        int row = destIdx * n;
+        boolean found = distances[table][row + sourceIdx] < Float.POSITIVE_INFINITY;
+        int hopCount = 0;
+        if (found) {
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            route.start(sourceIdx);
+            for (int city = sourceIdx; city != destIdx; hopCount++) {
+                int edge = offsets[city] + hop(table, row + city);
+                route.addFlight(graph, edge);
+                city = targets[edge];
+            }
+        }
+        if (metrics.isEnabled()) {
+            // Nothing is searched; the walked hops stand in for settled cities
+            metrics.recordQuery(hopCount, 0, 0, System.nanoTime() - start);
+        }
+        return found;
+    }
+
+    private int hop(int table, int index) {
+        return hops != null ? hops[table][index] : wideHops[table][index];
+    }
+
+    private void setHop(int table, int index, int slot) {
+        if (hops != null) {
+            hops[table][index] = (short) slot;
+        } else {
+            wideHops[table][index] = slot;
+        }
+    }
+
+    // On the symmetric flight graph the search tree grown from a target also
+    // gives every city its first hop towards it: the flight back to its parent
+    private void buildWithDijkstra(ForkJoinPool pool) {
+        int n = cityCount;
+        Criterion[] criteria = Criterion.values();
+        WorkspacePool workspaces = new WorkspacePool(ARITY);
+        ParallelRange.forEach(pool, criteria.length * n, job -> {
+            Criterion criterion = criteria[job / n];
+            int target = job % n;
+            SearchWorkspace workspace = workspaces.get(n);
+            searchFrom(target, criterion, workspace);
+
+            int table = criterion.ordinal();
+            float[] row = distances[table];
+            int base = target * n;
+            for (int city = 0; city < n; city++) {
+                if (workspace.isReached(city)) {
+                    row[base + city] = (float) workspace.distance(city);
+                    setHop(table, base + city, city == target ? NO_HOP : slotTo(city, workspace.previous(city)));
+                } else {
+                    row[base + city] = Float.POSITIVE_INFINITY;
+                    setHop(table, base + city, NO_HOP);
+                }
+            }
+        });
+    }
+
+    private void searchFrom(int source, Criterion criterion, SearchWorkspace workspace) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.reach(source, 0, -1, -1);
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            workspace.settle(current);
+            double base = workspace.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                if (workspace.isSettled(next)) {
+                    continue;
+                }
+                double candidate = base + weights[e];
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, current, e);
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+    }
+
+    // Position of the flight city -> to within city's CSR row
+    private int slotTo(int city, int to) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+            if (targets[e] == to) {
+                return e - offsets[city];
+            }
+        }
+        throw new IllegalStateException("No flight back from " + graph.getCity(city) + " to " + graph.getCity(to));
+    }
+
+    // Blocked Floyd-Warshall on a double working matrix, narrowed to float at
+    // the end so rounding cannot pick a slightly longer route. With rows as
+    // targets and columns as cities, relaxing via k reads row k for the
+    // first hop: going through k starts with the first hop towards k.
+    private void buildWithFloydWarshall(ForkJoinPool pool) {
+        int n = cityCount;
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] work = new double[n * n];
+        int[] next = new int[n * n];
+        int tiles = (n + TILE - 1) / TILE;
+
+        for (Criterion criterion : Criterion.values()) {
+            double[] weights = graph.getWeights(criterion);
+            Arrays.fill(work, Double.POSITIVE_INFINITY);
+            Arrays.fill(next, NO_HOP);
+            for (int city = 0; city < n; city++) {
+                work[city * n + city] = 0;
+                for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                    int index = targets[e] * n + city;
+                    double weight = weights[e];
+                    if (weight < work[index]) {
+                        work[index] = weight;
+                        next[index] = e - offsets[city];
+                    }
+                }
+            }
+
+            for (int k = 0; k < tiles; k++) {
+                int kb = k;
+                relaxTile(work, next, kb, kb, kb);
+                // The pivot tile's row and column only depend on the pivot tile
+                ParallelRange.forEach(pool, 2 * tiles, job -> {
+                    int other = job >> 1;
+                    if (other == kb) {
+                        return;
+                    }
+                    if ((job & 1) == 0) {
+                        relaxTile(work, next, kb, other, kb);
+                    } else {
+                        relaxTile(work, next, other, kb, kb);
+                    }
+                });
+                // Every other tile depends on its pivot row and column tiles only
+                ParallelRange.forEach(pool, tiles * tiles, job -> {
+                    int rowTile = job / tiles;
+                    int columnTile = job % tiles;
+                    if (rowTile != kb && columnTile != kb) {
+                        relaxTile(work, next, rowTile, columnTile, kb);
+                    }
+                });
+            }
+
+            int table = criterion.ordinal();
+            float[] row = distances[table];
+            for (int i = 0; i < work.length; i++) {
+                row[i] = (float) work[i];
+                setHop(table, i, next[i]);
+            }
+        }
+    }
+
+    private void relaxTile(double[] work, int[] next, int rowTile, int columnTile, int pivotTile) {
+        int n = cityCount;
+        int rowEnd = Math.min(n, (rowTile + 1) * TILE);
+        int columnStart = columnTile * TILE;
+        int columnEnd = Math.min(n, columnStart + TILE);
+        int pivotEnd = Math.min(n, (pivotTile + 1) * TILE);
+        for (int k = pivotTile * TILE; k < pivotEnd; k++) {
+            int kRow = k * n;
+            for (int r = rowTile * TILE; r < rowEnd; r++) {
+                int rRow = r * n;
+                double toK = work[rRow + k];
+                if (toK == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                for (int c = columnStart; c < columnEnd; c++) {
+                    double via = toK + work[kRow + c];
+                    if (via < work[rRow + c]) {
+                        work[rRow + c] = via;
+                        next[rRow + c] = next[kRow + c];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package routing;
+
+// Bidirectional Dijkstra for single-pair queries. A forward search from the
+// source and a backward search from the target run in turns, always expanding
+// the side with the smaller queue. Every scanned edge that reaches a city
+// labelled by the other side proposes a route; the search stops once the two
+// smallest queue keys together cannot beat the best proposal. On large
+// networks the two balls together settle far fewer cities than one ball
+// reaching all the way to the target.
+//
+// The backward search walks the same CSR rows as the forward one, which is
+// only valid because FlightGraph stores every flight in both directions.
+public class BidirectionalDijkstraEngine implements ShortestPathEngine {
+    private static final int DEFAULT_ARITY = 4;
+
+    private final FlightGraph graph;
+    private final WorkspacePool forwardWorkspaces;
+    private final WorkspacePool backwardWorkspaces;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public BidirectionalDijkstraEngine(FlightGraph graph) {
+        this.graph = graph;
+        this.forwardWorkspaces = new WorkspacePool(DEFAULT_ARITY);
+        this.backwardWorkspaces = new WorkspacePool(DEFAULT_ARITY);
+    }
+
+    @Override
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route) {
+        route.clear();
+        int n = graph.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return false;
+        }
+
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int settledCount = 0;
+        int relaxedCount = 0;
+        int heapOperations = 2;
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        SearchWorkspace forward = forwardWorkspaces.get(n);
+        SearchWorkspace backward = backwardWorkspaces.get(n);
+        IndexedDaryHeap forwardHeap = forward.heap();
+        IndexedDaryHeap backwardHeap = backward.heap();
+
+        forward.reach(sourceIdx, 0, -1, -1);
+        forwardHeap.insertOrDecrease(sourceIdx, 0);
+        backward.reach(destIdx, 0, -1, -1);
+        backwardHeap.insertOrDecrease(destIdx, 0);
+
+        // Best route so far: forward tree to meetFrom, edge meetEdge, backward tree from meetTo
+        double best = sourceIdx == destIdx ? 0 : Double.POSITIVE_INFINITY;
+        int meetFrom = sourceIdx;
+        int meetEdge = -1;
+        int meetTo = destIdx;
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.peekKey() + backwardHeap.peekKey() < best) {
+            boolean forwardTurn = forwardHeap.size() <= backwardHeap.size();
+            SearchWorkspace side = forwardTurn ? forward : backward;
+            SearchWorkspace other = forwardTurn ? backward : forward;
+            IndexedDaryHeap heap = side.heap();
+
+            int current = heap.pollMin();
+            heapOperations++;
+            side.settle(current);
+            if (Cancellation.requested(++settledCount)) {
+                best = Double.POSITIVE_INFINITY;
+                break;
+            }
+
+            double base = side.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                double candidate = base + weights[e];
+                relaxedCount++;
+                if (!side.isSettled(next) && candidate < side.distance(next)) {
+                    side.reach(next, candidate, current, e);
+                    heap.insertOrDecrease(next, candidate);
+                    heapOperations++;
+                }
+                if (other.isReached(next)) {
+                    double total = candidate + other.distance(next);
+                    if (total < best) {
+                        best = total;
+                        meetEdge = e;
+                        meetFrom = forwardTurn ? current : next;
+                        meetTo = forwardTurn ? next : current;
+                    }
+                }
+            }
+        }
+
+        boolean found = best < Double.POSITIVE_INFINITY;
+        if (found) {
+            route.setFromMeeting(graph, forward, meetFrom, meetEdge, backward, meetTo);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(settledCount, relaxedCount, heapOperations, System.nanoTime() - start);
+        }
+        return found;
+    }
+}
@@ -0,0 +1,15 @@
+package routing;
+
+// Searches poll this as they settle cities and stop, returning no route, once
+// their thread is interrupted. The interrupt stays set for the caller to see.
+// Checking every 1024th city keeps the cost off the inner loop.
+final class Cancellation {
+    private static final int CHECK_MASK = 1023;
+
+    private Cancellation() {
+    }
+
+    static boolean requested(int settledCount) {
+        return (settledCount & CHECK_MASK) == 0 && Thread.currentThread().isInterrupted();
+    }
+}
@@ -1,7 +1,9 @@
-class Capital {
-    String name;
-    double latitude;
-    double longitude;
+package routing;
+
+public class Capital {
+    public String name;
+    public double latitude;
+    public double longitude;
     
     public Capital(String name, double latitude, double longitude) {
         this.name = name;
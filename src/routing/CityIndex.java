@@ -0,0 +1,155 @@
+package routing;
+
+// Hash index from city name to city id. Names match ignoring case and
+// surrounding whitespace, like the capital search in the UI always did.
+// Keys are folded once on insert; lookups fold the query while hashing, so
+// they allocate nothing.
+public class CityIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] keys; // folded names, null for free slots
+    private int[] hashes;  // hash of each key, checked before comparing characters
+    private int[] ids;
+    private int size;
+
+    public CityIndex() {
+        keys = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Returns the id registered for the name, or -1
+    public int get(CharSequence name) {
+        return get(name, 0, name.length());
+    }
+
+    public int get(CharSequence name, int start, int end) {
+        while (start < end && name.charAt(start) <= ' ') start++;
+        while (end > start && name.charAt(end - 1) <= ' ') end--;
+
+        int h = hash(name, start, end);
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && matches(keys[slot], name, start, end)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Same lookup for a name inside a char array, as parsers hold it
+    public int get(char[] chars, int start, int end) {
+        while (start < end && chars[start] <= ' ') start++;
+        while (end > start && chars[end - 1] <= ' ') end--;
+
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(chars[i]);
+        }
+        h ^= h >>> 16;
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == h && matches(keys[slot], chars, start, end)) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Registers the name unless an equal name is already present.
+    // Returns the id now associated with the name.
+    public int putIfAbsent(String name, int id) {
+        int existing = get(name);
+        if (existing >= 0) {
+            return existing;
+        }
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        insert(fold(name.trim()), id);
+        size++;
+        return id;
+    }
+
+    private void insert(String foldedKey, int id) {
+        int h = hash(foldedKey, 0, foldedKey.length());
+        int mask = keys.length - 1;
+        int slot = h & mask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = foldedKey;
+        hashes[slot] = h;
+        ids[slot] = id;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        ids = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insert(oldKeys[i], oldIds[i]);
+            }
+        }
+    }
+
+    private static int hash(CharSequence name, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String foldedKey, CharSequence name, int start, int end) {
+        if (foldedKey.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (foldedKey.charAt(i - start) != fold(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String foldedKey, char[] chars, int start, int end) {
+        if (foldedKey.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (foldedKey.charAt(i - start) != fold(chars[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // Same case folding as String.equalsIgnoreCase
+    static char fold(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,554 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Contraction Hierarchy for one criterion. Cities are contracted one level at
+// a time: removing a city adds a shortcut between two of its neighbours
+// whenever the path through it is the only shortest one (no "witness" path
+// avoiding it exists). Every city gets a rank, and each edge, original or
+// shortcut, is stored at its lower-ranked end. That is the upward graph.
+// The network is symmetric, so the downward graph is the upward graph read
+// backwards and a query runs the same upward search from both ends.
+//
+// Preprocessing runs in rounds. Each round takes an independent set of
+// cities that have lower priority than all their remaining neighbours and
+// contracts them in parallel; their shortcuts are merged afterwards in one
+// serial step. Priorities of cities next to a contraction are refreshed
+// lazily, once they are about to be picked.
+//
+// Cities whose degree stays too high are left uncontracted as the core, with
+// the top ranks. Core edges are stored at both ends, and queries run a plain
+// bidirectional search inside the core.
+//
+// The hierarchy is a snapshot: flights added to the graph later are not seen.
+public class ContractionHierarchy {
+    private static final int ARITY = 4;
+    // Witness searches give up after scanning this many edges and keep the
+    // shortcut; estimating a priority needs less precision than contracting
+    private static final int PRIORITY_SCAN_LIMIT = 100;
+    private static final int CONTRACTION_SCAN_LIMIT = 1000;
+    // Cities above this degree stay in the core. On hub-and-spoke networks
+    // the hubs end up there instead of collecting shortcuts to everything.
+    private static final int MAX_CONTRACTED_DEGREE = 16;
+
+    private static final byte ACTIVE = 0;
+    private static final byte IN_BATCH = 1;
+    private static final byte CONTRACTED = 2;
+
+    private final Criterion criterion;
+    private final int[] rank;
+    private final int coreSize; // the top coreSize ranks are left uncontracted
+
+    // Upward graph in CSR form; upEdges holds the hierarchy edge of each slot
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    private final int[] upEdges;
+
+    // Hierarchy edges between edgeFrom and edgeTo. For original flights
+    // firstPart/secondPart are the CSR slots from->to and to->from; for
+    // shortcuts they are the hierarchy edges from-middle and middle-to.
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeMiddle; // -1 for original flights
+    private final int[] firstPart;
+    private final int[] secondPart;
+    private final int shortcutCount;
+
+    private ContractionHierarchy(Criterion criterion, int[] rank, int coreSize, int[] upOffsets, int[] upTargets,
+                                 double[] upWeights, int[] upEdges, Builder edges) {
+        this.criterion = criterion;
+        this.rank = rank;
+        this.coreSize = coreSize;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upEdges = upEdges;
+        this.edgeFrom = Arrays.copyOf(edges.from, edges.count);
+        this.edgeTo = Arrays.copyOf(edges.to, edges.count);
+        this.edgeMiddle = Arrays.copyOf(edges.middle, edges.count);
+        this.firstPart = Arrays.copyOf(edges.first, edges.count);
+        this.secondPart = Arrays.copyOf(edges.second, edges.count);
+        this.shortcutCount = edges.count - edges.originalCount;
+    }
+
+    public static ContractionHierarchy build(FlightGraph graph, Criterion criterion) {
+        return new Builder(graph, criterion).run();
+    }
+
+    public Criterion getCriterion() {
+        return criterion;
+    }
+
+    public int getCityCount() {
+        return rank.length;
+    }
+
+    public int getRank(int city) {
+        return rank[city];
+    }
+
+    public int getCoreSize() {
+        return coreSize;
+    }
+
+    // Core cities hold the top ranks
+    public boolean isCore(int city) {
+        return rank[city] >= rank.length - coreSize;
+    }
+
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    public int[] getUpOffsets() {
+        return upOffsets;
+    }
+
+    public int[] getUpTargets() {
+        return upTargets;
+    }
+
+    public double[] getUpWeights() {
+        return upWeights;
+    }
+
+    public int[] getUpEdges() {
+        return upEdges;
+    }
+
+    // Appends the flights behind hierarchy edge chEdge, walked starting at
+    // city from, to edges[count..] and returns the new count. stack needs
+    // 2 * (maxDepth() + 1) entries.
+    int unpack(int chEdge, int from, int[] edges, int count, int[] stack) {
+        int top = 0;
+        stack[top++] = chEdge;
+        stack[top++] = from;
+        while (top > 0) {
+            int city = stack[--top];
+            int edge = stack[--top];
+            boolean forward = city == edgeFrom[edge];
+            int middle = edgeMiddle[edge];
+            if (middle < 0) {
+                edges[count++] = forward ? firstPart[edge] : secondPart[edge];
+            } else if (forward) {
+                stack[top++] = secondPart[edge];
+                stack[top++] = middle;
+                stack[top++] = firstPart[edge];
+                stack[top++] = city;
+            } else {
+                stack[top++] = firstPart[edge];
+                stack[top++] = middle;
+                stack[top++] = secondPart[edge];
+                stack[top++] = city;
+            }
+        }
+        return count;
+    }
+
+    // Deepest shortcut nesting, which bounds the unpacking stack
+    int maxDepth() {
+        int[] depth = new int[edgeFrom.length];
+        int max = 1;
+        // Shortcuts are created after their parts, so ids are already in dependency order
+        for (int e = 0; e < depth.length; e++) {
+            depth[e] = edgeMiddle[e] < 0 ? 1 : 1 + Math.max(depth[firstPart[e]], depth[secondPart[e]]);
+            max = Math.max(max, depth[e]);
+        }
+        return max;
+    }
+
+    // Mutable state while contracting; edges grow as shortcuts are added
+    private static final class Builder {
+        private final FlightGraph graph;
+        private final Criterion criterion;
+        private final int n;
+        private final WorkspacePool witnessWorkspaces = new WorkspacePool(ARITY);
+        private final ThreadLocal<WitnessTargets> witnessTargets = ThreadLocal.withInitial(() -> new WitnessTargets(0));
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] middle = new int[16];
+        private int[] first = new int[16];
+        private int[] second = new int[16];
+        private double[] weight = new double[16];
+        private boolean[] live = new boolean[16];
+        private int count;
+        private int originalCount;
+
+        // Live edges at each uncontracted city
+        private final int[][] adjacency;
+        private final int[] degree;
+        private final byte[] state;
+        private final int[] priority;
+        private final int[] contractedNeighbours;
+        private final boolean[] stale; // a neighbour was contracted since the priority was computed
+
+        Builder(FlightGraph graph, Criterion criterion) {
+            this.graph = graph;
+            this.criterion = criterion;
+            this.n = graph.getCityCount();
+            this.adjacency = new int[n][];
+            this.degree = new int[n];
+            this.state = new byte[n];
+            this.priority = new int[n];
+            this.contractedNeighbours = new int[n];
+            this.stale = new boolean[n];
+        }
+
+        ContractionHierarchy run() {
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            double[] weights = graph.getWeights(criterion);
+            for (int city = 0; city < n; city++) {
+                adjacency[city] = new int[Math.max(4, offsets[city + 1] - offsets[city])];
+            }
+            // Each flight is stored in both directions; keep it once, from its smaller end
+            for (int city = 0; city < n; city++) {
+                for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                    int next = targets[e];
+                    double w = weights[e];
+                    if (next > city && !Double.isNaN(w)) {
+                        addEdge(city, next, -1, e, reverseSlot(offsets, targets, next, city), w);
+                    }
+                }
+            }
+            originalCount = count;
+
+            IntStream.range(0, n).parallel().forEach(city -> priority[city] = computePriority(city));
+
+            int[] rank = new int[n];
+            int nextRank = 0;
+            int[] batch = new int[n];
+            int[] refresh = new int[n];
+            while (true) {
+                // Priorities next to earlier contractions are only refreshed once
+                // they look smallest; repeat until the chosen set is up to date
+                int batchSize = selectIndependentSet(batch);
+                int staleCount;
+                while ((staleCount = collectStale(batch, batchSize, refresh)) > 0) {
+                    IntStream.range(0, staleCount).parallel().forEach(k -> {
+                        priority[refresh[k]] = computePriority(refresh[k]);
+                        stale[refresh[k]] = false;
+                    });
+                    batchSize = selectIndependentSet(batch);
+                }
+                if (batchSize == 0) {
+                    break;
+                }
+
+                for (int i = 0; i < batchSize; i++) {
+                    state[batch[i]] = IN_BATCH;
+                }
+                List<int[]> shortcuts = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    shortcuts.add(null);
+                }
+                IntStream.range(0, batchSize).parallel().forEach(i -> shortcuts.set(i, findShortcuts(batch[i], CONTRACTION_SCAN_LIMIT)));
+
+                for (int i = 0; i < batchSize; i++) {
+                    int city = batch[i];
+                    rank[city] = nextRank++;
+                    state[city] = CONTRACTED;
+                    for (int k = 0; k < degree[city]; k++) {
+                        int edge = adjacency[city][k];
+                        int neighbour = other(edge, city);
+                        removeFromAdjacency(neighbour, edge);
+                        contractedNeighbours[neighbour]++;
+                        stale[neighbour] = true;
+                    }
+                    int[] found = shortcuts.get(i);
+                    for (int k = 0; k < found.length; k += 4) {
+                        addShortcut(found[k], found[k + 1], city, found[k + 2], found[k + 3]);
+                    }
+                }
+                for (int i = 0; i < batchSize; i++) {
+                    int[] edges = adjacency[batch[i]];
+                    for (int k = 0; k < degree[batch[i]]; k++) {
+                        int neighbour = other(edges[k], batch[i]);
+                        // A core city whose degree dropped gets considered again
+                        if (priority[neighbour] == Integer.MAX_VALUE && degree[neighbour] <= MAX_CONTRACTED_DEGREE) {
+                            priority[neighbour] = Integer.MIN_VALUE;
+                        }
+                    }
+                }
+            }
+            // What is left is too dense to contract and becomes the core
+            int coreSize = n - nextRank;
+            for (int city = 0; city < n; city++) {
+                if (state[city] == ACTIVE) {
+                    rank[city] = nextRank++;
+                }
+            }
+            return buildUpwardGraph(rank, coreSize);
+        }
+
+        // Cities whose (priority, index) is smaller than that of every remaining neighbour
+        private int selectIndependentSet(int[] batch) {
+            int size = 0;
+            for (int city = 0; city < n; city++) {
+                if (state[city] != ACTIVE || degree[city] > MAX_CONTRACTED_DEGREE) {
+                    continue;
+                }
+                boolean minimal = true;
+                for (int k = 0; k < degree[city] && minimal; k++) {
+                    int neighbour = other(adjacency[city][k], city);
+                    // Cities too dense to contract do not hold their neighbours back
+                    minimal = degree[neighbour] > MAX_CONTRACTED_DEGREE
+                        || priority[city] < priority[neighbour]
+                        || (priority[city] == priority[neighbour] && city < neighbour);
+                }
+                if (minimal) {
+                    batch[size++] = city;
+                }
+            }
+            return size;
+        }
+
+        private int collectStale(int[] batch, int batchSize, int[] refresh) {
+            int count = 0;
+            for (int i = 0; i < batchSize; i++) {
+                if (stale[batch[i]]) {
+                    refresh[count++] = batch[i];
+                }
+            }
+            return count;
+        }
+
+        // Edge difference plus contracted neighbours, which keeps contraction spread out
+        private int computePriority(int city) {
+            if (degree[city] > MAX_CONTRACTED_DEGREE) {
+                return Integer.MAX_VALUE; // core city, unless its degree drops later
+            }
+            int shortcuts = findShortcuts(city, PRIORITY_SCAN_LIMIT).length / 4;
+            return shortcuts - degree[city] + contractedNeighbours[city];
+        }
+
+        // Shortcuts needed to remove city, as (from, to, firstEdge, secondEdge) quadruples
+        private int[] findShortcuts(int city, int scanLimit) {
+            int[] edges = adjacency[city];
+            int d = degree[city];
+            int[] found = new int[0];
+            int foundCount = 0;
+            for (int i = 0; i + 1 < d; i++) {
+                int inEdge = edges[i];
+                int source = other(inEdge, city);
+                // Edges are sorted by weight, so the last one is the longest way out
+                double maxOut = weight[edges[d - 1]];
+                SearchWorkspace workspace = witnessSearch(source, city, edges, i + 1, d, weight[inEdge] + maxOut, scanLimit);
+                for (int j = i + 1; j < d; j++) {
+                    int outEdge = edges[j];
+                    int target = other(outEdge, city);
+                    double via = weight[inEdge] + weight[outEdge];
+                    if (workspace.distance(target) <= via) {
+                        continue;
+                    }
+                    if (foundCount + 4 > found.length) {
+                        found = Arrays.copyOf(found, Math.max(16, found.length * 2));
+                    }
+                    found[foundCount++] = source;
+                    found[foundCount++] = target;
+                    found[foundCount++] = inEdge;
+                    found[foundCount++] = outEdge;
+                }
+            }
+            return Arrays.copyOf(found, foundCount);
+        }
+
+        // Dijkstra from source over remaining cities except via, up to maxDistance
+        // or until the far ends of viaEdges[from..to) are all settled. Cities of
+        // the current batch are skipped too, so cities contracted together never
+        // count on each other as witnesses.
+        private SearchWorkspace witnessSearch(int source, int via, int[] viaEdges, int from, int to, double maxDistance, int scanLimit) {
+            WitnessTargets marks = witnessTargets.get();
+            if (marks.stamp.length < n) {
+                marks = new WitnessTargets(n);
+                witnessTargets.set(marks);
+            }
+            int stamp = ++marks.generation;
+            for (int k = from; k < to; k++) {
+                marks.stamp[other(viaEdges[k], via)] = stamp;
+            }
+            int remaining = to - from;
+
+            SearchWorkspace workspace = witnessWorkspaces.get(n);
+            IndexedDaryHeap heap = workspace.heap();
+            workspace.reach(source, 0, -1, -1);
+            heap.insertOrDecrease(source, 0);
+            int scanned = 0;
+            while (remaining > 0 && !heap.isEmpty() && heap.peekKey() <= maxDistance && scanned < scanLimit) {
+                int current = heap.pollMin();
+                workspace.settle(current);
+                if (marks.stamp[current] == stamp) {
+                    remaining--;
+                }
+                double base = workspace.distance(current);
+                int[] edges = adjacency[current];
+                for (int k = 0; k < degree[current]; k++) {
+                    int edge = edges[k];
+                    double candidate = base + weight[edge];
+                    scanned++;
+                    if (candidate > maxDistance) {
+                        break; // the rest of the row is longer still
+                    }
+                    int next = other(edge, current);
+                    if (next == via || state[next] != ACTIVE) {
+                        continue;
+                    }
+                    if (candidate < workspace.distance(next)) {
+                        workspace.reach(next, candidate, current, edge);
+                        heap.insertOrDecrease(next, candidate);
+                    }
+                }
+            }
+            return workspace;
+        }
+
+        // firstEdge joins a and via, secondEdge joins via and b
+        private void addShortcut(int a, int b, int via, int firstEdge, int secondEdge) {
+            double w = weight[firstEdge] + weight[secondEdge];
+            int existing = findEdge(a, b);
+            if (existing >= 0) {
+                if (weight[existing] <= w) {
+                    return;
+                }
+                live[existing] = false; // superseded, but shortcuts may still unpack through it
+                removeFromAdjacency(a, existing);
+                removeFromAdjacency(b, existing);
+            }
+            addEdge(a, b, via, firstEdge, secondEdge, w);
+        }
+
+        private int findEdge(int a, int b) {
+            int[] edges = adjacency[a];
+            for (int k = 0; k < degree[a]; k++) {
+                if (other(edges[k], a) == b) {
+                    return edges[k];
+                }
+            }
+            return -1;
+        }
+
+        private void addEdge(int a, int b, int via, int firstEdge, int secondEdge, double w) {
+            if (count == from.length) {
+                int capacity = count * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                middle = Arrays.copyOf(middle, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                live = Arrays.copyOf(live, capacity);
+            }
+            from[count] = a;
+            to[count] = b;
+            middle[count] = via;
+            first[count] = firstEdge;
+            second[count] = secondEdge;
+            weight[count] = w;
+            live[count] = true;
+            addToAdjacency(a, count);
+            addToAdjacency(b, count);
+            count++;
+        }
+
+        private int other(int edge, int city) {
+            return from[edge] == city ? to[edge] : from[edge];
+        }
+
+        // Rows stay sorted by weight, so witness searches can stop scanning early
+        private void addToAdjacency(int city, int edge) {
+            if (degree[city] == adjacency[city].length) {
+                adjacency[city] = Arrays.copyOf(adjacency[city], degree[city] * 2);
+            }
+            int[] edges = adjacency[city];
+            int slot = degree[city]++;
+            while (slot > 0 && weight[edges[slot - 1]] > weight[edge]) {
+                edges[slot] = edges[slot - 1];
+                slot--;
+            }
+            edges[slot] = edge;
+        }
+
+        private void removeFromAdjacency(int city, int edge) {
+            int[] edges = adjacency[city];
+            for (int k = 0; k < degree[city]; k++) {
+                if (edges[k] == edge) {
+                    System.arraycopy(edges, k + 1, edges, k, degree[city] - k - 1);
+                    degree[city]--;
+                    return;
+                }
+            }
+        }
+
+        private static int reverseSlot(int[] offsets, int[] targets, int city, int target) {
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                if (targets[e] == target) {
+                    return e;
+                }
+            }
+            throw new IllegalStateException("Flight " + target + " -> " + city + " has no return edge");
+        }
+
+        // Every live edge goes to the row of its lower-ranked end; edges
+        // inside the core go to both rows, since the core is searched in full
+        private ContractionHierarchy buildUpwardGraph(int[] rank, int coreSize) {
+            int coreStart = n - coreSize;
+            int[] upOffsets = new int[n + 1];
+            for (int e = 0; e < count; e++) {
+                if (live[e]) {
+                    upOffsets[lower(e, rank) + 1]++;
+                    if (rank[from[e]] >= coreStart && rank[to[e]] >= coreStart) {
+                        upOffsets[higher(e, rank) + 1]++;
+                    }
+                }
+            }
+            for (int city = 0; city < n; city++) {
+                upOffsets[city + 1] += upOffsets[city];
+            }
+            int edgeCount = upOffsets[n];
+            int[] upTargets = new int[edgeCount];
+            double[] upWeights = new double[edgeCount];
+            int[] upEdges = new int[edgeCount];
+            int[] fill = Arrays.copyOf(upOffsets, n);
+            for (int e = 0; e < count; e++) {
+                if (live[e]) {
+                    int low = lower(e, rank);
+                    addUpwardSlot(fill, upTargets, upWeights, upEdges, low, e);
+                    if (rank[from[e]] >= coreStart && rank[to[e]] >= coreStart) {
+                        addUpwardSlot(fill, upTargets, upWeights, upEdges, other(e, low), e);
+                    }
+                }
+            }
+            return new ContractionHierarchy(criterion, rank, coreSize, upOffsets, upTargets, upWeights, upEdges, this);
+        }
+
+        private void addUpwardSlot(int[] fill, int[] upTargets, double[] upWeights, int[] upEdges, int city, int edge) {
+            int slot = fill[city]++;
+            upTargets[slot] = other(edge, city);
+            upWeights[slot] = weight[edge];
+            upEdges[slot] = edge;
+        }
+
+        private int higher(int edge, int[] rank) {
+            return rank[from[edge]] < rank[to[edge]] ? to[edge] : from[edge];
+        }
+
+        private int lower(int edge, int[] rank) {
+            return rank[from[edge]] < rank[to[edge]] ? from[edge] : to[edge];
+        }
+    }
+
+    // Per-thread marks for the cities a witness search is looking for
+    private static final class WitnessTargets {
+        final int[] stamp;
+        int generation;
+
+        WitnessTargets(int cityCount) {
+            stamp = new int[cityCount];
+        }
+    }
+}
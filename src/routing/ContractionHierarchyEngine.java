@@ -0,0 +1,298 @@
+package routing;
+
+// Bidirectional query on Contraction Hierarchies. Both searches only follow
+// edges towards higher-ranked cities, so on road-like networks each settles a
+// few hundred cities whatever the distance between source and target. The
+// best route meets at its highest-ranked city; its shortcuts are then
+// unpacked back into flights. Routes through the uncontracted core continue
+// with a bidirectional Dijkstra there, started from every core city the
+// upward searches reached.
+//
+// The hierarchies are built once in the constructor, one per criterion, and
+// describe the graph as it was then.
+public class ContractionHierarchyEngine implements ShortestPathEngine {
+    private static final int DEFAULT_ARITY = 4;
+
+    private final FlightGraph graph;
+    private final ContractionHierarchy[] hierarchies;
+    private final int stackSize;
+    private final WorkspacePool forwardWorkspaces;
+    private final WorkspacePool backwardWorkspaces;
+    private final ThreadLocal<Query> queries = new ThreadLocal<>();
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public ContractionHierarchyEngine(FlightGraph graph) {
+        this(graph, buildAll(graph));
+    }
+
+    // hierarchies are indexed by Criterion.ordinal()
+    public ContractionHierarchyEngine(FlightGraph graph, ContractionHierarchy[] hierarchies) {
+        this.graph = graph;
+        this.hierarchies = hierarchies;
+        int depth = 0;
+        for (ContractionHierarchy hierarchy : hierarchies) {
+            depth = Math.max(depth, hierarchy.maxDepth());
+        }
+        this.stackSize = 2 * (depth + 1);
+        this.forwardWorkspaces = new WorkspacePool(DEFAULT_ARITY);
+        this.backwardWorkspaces = new WorkspacePool(DEFAULT_ARITY);
+    }
+
+    private static ContractionHierarchy[] buildAll(FlightGraph graph) {
+        Criterion[] criteria = Criterion.values();
+        ContractionHierarchy[] hierarchies = new ContractionHierarchy[criteria.length];
+        for (Criterion criterion : criteria) {
+            hierarchies[criterion.ordinal()] = ContractionHierarchy.build(graph, criterion);
+        }
+        return hierarchies;
+    }
+
+    public ContractionHierarchy getHierarchy(Criterion criterion) {
+        return hierarchies[criterion.ordinal()];
+    }
+
+    @Override
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route) {
+        route.clear();
+        ContractionHierarchy hierarchy = hierarchies[criterion.ordinal()];
+        int n = hierarchy.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return false;
+        }
+
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Query query = query();
+        query.start();
+        SearchWorkspace forward = forwardWorkspaces.get(n);
+        SearchWorkspace backward = backwardWorkspaces.get(n);
+
+        int forwardEntries = 0;
+        int backwardEntries = 0;
+        IndexedDaryHeap forwardHeap = forward.heap();
+        IndexedDaryHeap backwardHeap = backward.heap();
+        forward.reach(sourceIdx, 0, -1, -1);
+        forwardHeap.insertOrDecrease(sourceIdx, 0);
+        backward.reach(destIdx, 0, -1, -1);
+        backwardHeap.insertOrDecrease(destIdx, 0);
+        query.heapOperations += 2;
+
+        // Upward searches from both ends, each until its next key cannot beat the
+        // best route. Core cities are collected as entries rather than expanded.
+        boolean forwardTurn = false;
+        boolean cancelled = false;
+        while (true) {
+            boolean forwardOpen = !forwardHeap.isEmpty() && forwardHeap.peekKey() < query.best;
+            boolean backwardOpen = !backwardHeap.isEmpty() && backwardHeap.peekKey() < query.best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            forwardTurn = forwardOpen && (!backwardOpen || !forwardTurn);
+            SearchWorkspace side = forwardTurn ? forward : backward;
+            SearchWorkspace other = forwardTurn ? backward : forward;
+
+            int current = side.heap().pollMin();
+            query.heapOperations++;
+            if (hierarchy.isCore(current)) {
+                if (forwardTurn) {
+                    query.forwardEntries[forwardEntries++] = current;
+                } else {
+                    query.backwardEntries[backwardEntries++] = current;
+                }
+                continue;
+            }
+            side.settle(current);
+            if (Cancellation.requested(++query.settled)) {
+                cancelled = true;
+                break;
+            }
+            relaxUpward(hierarchy, side, other, current, query);
+        }
+        if (!cancelled && forwardEntries > 0 && backwardEntries > 0) {
+            cancelled = !coreSearch(hierarchy, forward, backward, query, forwardEntries, backwardEntries);
+        }
+
+        boolean found = !cancelled && query.best < Double.POSITIVE_INFINITY;
+        if (found) {
+            unpackRoute(hierarchy, forward, backward, sourceIdx, query, route);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(query.settled, query.relaxed, query.heapOperations, System.nanoTime() - start);
+        }
+        return found;
+    }
+
+    private void relaxUpward(ContractionHierarchy hierarchy, SearchWorkspace side, SearchWorkspace other,
+                             int current, Query query) {
+        int[] upOffsets = hierarchy.getUpOffsets();
+        int[] upTargets = hierarchy.getUpTargets();
+        double[] upWeights = hierarchy.getUpWeights();
+        int[] upEdges = hierarchy.getUpEdges();
+        IndexedDaryHeap heap = side.heap();
+        double base = side.distance(current);
+        if (other.isReached(current)) {
+            query.propose(base + other.distance(current), current, -1, current);
+        }
+        for (int slot = upOffsets[current]; slot < upOffsets[current + 1]; slot++) {
+            int next = upTargets[slot];
+            double candidate = base + upWeights[slot];
+            query.relaxed++;
+            if (candidate < side.distance(next)) {
+                side.reach(next, candidate, current, upEdges[slot]);
+                heap.insertOrDecrease(next, candidate);
+                query.heapOperations++;
+            }
+        }
+    }
+
+    // Bidirectional Dijkstra over the core edges, seeded with the entry
+    // cities and their distances from the upward searches. Whatever the upward
+    // searches left in the heaps has a key of at least the best route, so it
+    // never gets expanded here. Returns false when cancelled.
+    private boolean coreSearch(ContractionHierarchy hierarchy, SearchWorkspace forward, SearchWorkspace backward,
+                            Query query, int forwardEntries, int backwardEntries) {
+        int[] upOffsets = hierarchy.getUpOffsets();
+        int[] upTargets = hierarchy.getUpTargets();
+        double[] upWeights = hierarchy.getUpWeights();
+        int[] upEdges = hierarchy.getUpEdges();
+        IndexedDaryHeap forwardHeap = forward.heap();
+        IndexedDaryHeap backwardHeap = backward.heap();
+        for (int i = 0; i < forwardEntries; i++) {
+            int city = query.forwardEntries[i];
+            forwardHeap.insertOrDecrease(city, forward.distance(city));
+        }
+        for (int i = 0; i < backwardEntries; i++) {
+            int city = query.backwardEntries[i];
+            backwardHeap.insertOrDecrease(city, backward.distance(city));
+            if (forward.isReached(city)) {
+                query.propose(forward.distance(city) + backward.distance(city), city, -1, city);
+            }
+        }
+        query.heapOperations += forwardEntries + backwardEntries;
+
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.peekKey() + backwardHeap.peekKey() < query.best) {
+            boolean forwardTurn = forwardHeap.size() <= backwardHeap.size();
+            SearchWorkspace side = forwardTurn ? forward : backward;
+            SearchWorkspace other = forwardTurn ? backward : forward;
+            IndexedDaryHeap heap = side.heap();
+
+            int current = heap.pollMin();
+            query.heapOperations++;
+            side.settle(current);
+            if (Cancellation.requested(++query.settled)) {
+                return false;
+            }
+
+            double base = side.distance(current);
+            for (int slot = upOffsets[current]; slot < upOffsets[current + 1]; slot++) {
+                int next = upTargets[slot];
+                double candidate = base + upWeights[slot];
+                query.relaxed++;
+                if (!side.isSettled(next) && candidate < side.distance(next)) {
+                    side.reach(next, candidate, current, upEdges[slot]);
+                    heap.insertOrDecrease(next, candidate);
+                    query.heapOperations++;
+                }
+                if (other.isReached(next)) {
+                    int edge = upEdges[slot];
+                    if (forwardTurn) {
+                        query.propose(candidate + other.distance(next), current, edge, next);
+                    } else {
+                        query.propose(candidate + other.distance(next), next, edge, current);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // Forward tree to meetFrom, the meeting edge if any, then the backward tree from meetTo
+    private void unpackRoute(ContractionHierarchy hierarchy, SearchWorkspace forward, SearchWorkspace backward,
+                             int sourceIdx, Query query, Route route) {
+        int[] chain = query.chain;
+        int[] edges = query.edges;
+        int[] stack = query.stack;
+        int hops = 0;
+        for (int city = query.meetFrom; forward.previous(city) != -1; city = forward.previous(city)) {
+            chain[hops++] = city;
+        }
+        int count = 0;
+        for (int i = hops - 1; i >= 0; i--) {
+            int city = chain[i];
+            count = hierarchy.unpack(forward.previousEdge(city), forward.previous(city), edges, count, stack);
+        }
+        if (query.meetEdge >= 0) {
+            count = hierarchy.unpack(query.meetEdge, query.meetFrom, edges, count, stack);
+        }
+        for (int city = query.meetTo; backward.previous(city) != -1; city = backward.previous(city)) {
+            count = hierarchy.unpack(backward.previousEdge(city), city, edges, count, stack);
+        }
+        route.setFromEdges(graph, sourceIdx, edges, count);
+    }
+
+    private Query query() {
+        Query query = queries.get();
+        int n = graph.getCityCount();
+        if (query == null || query.chain.length < n) {
+            query = new Query(n, stackSize);
+            queries.set(query);
+        }
+        return query;
+    }
+
+    // Per-thread query state and scratch space, so queries do not allocate
+    private static final class Query {
+        final int[] forwardEntries;
+        final int[] backwardEntries;
+        final int[] chain;
+        final int[] edges;
+        final int[] stack;
+
+        // Best route so far: forward tree to meetFrom, edge meetEdge, backward tree from meetTo
+        double best;
+        int meetFrom;
+        int meetEdge;
+        int meetTo;
+
+        int settled;
+        int relaxed;
+        int heapOperations;
+
+        Query(int cityCount, int stackSize) {
+            forwardEntries = new int[cityCount];
+            backwardEntries = new int[cityCount];
+            chain = new int[cityCount];
+            edges = new int[cityCount];
+            stack = new int[stackSize];
+        }
+
+        void start() {
+            best = Double.POSITIVE_INFINITY;
+            meetFrom = -1;
+            meetEdge = -1;
+            meetTo = -1;
+            settled = 0;
+            relaxed = 0;
+            heapOperations = 0;
+        }
+
+        void propose(double length, int from, int edge, int to) {
+            if (length < best) {
+                best = length;
+                meetFrom = from;
+                meetEdge = edge;
+                meetTo = to;
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package routing;
+
+// Optimization priorities offered by the filter combo box
+public enum Criterion {
+    DISTANCE("Shortest Distance"),
+    TIME("Less Time"),
+    COST("Less Cost");
+
+    private final String label;
+
+    Criterion(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Accepts either the combo box label ("Less Cost") or the constant name ("cost")
+    public static Criterion fromLabel(String text) {
+        String search = text.trim();
+        for (Criterion criterion : values()) {
+            if (criterion.label.equalsIgnoreCase(search) || criterion.name().equalsIgnoreCase(search)) {
+                return criterion;
+            }
+        }
+        throw new IllegalArgumentException("Unknown criteria: " + text);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -1,8 +1,10 @@
-class Flight {
-    String source;
-    String destination;
-    double cost;
-    int duration; // in minutes
+package routing;
+
+public class Flight {
+    public String source;
+    public String destination;
+    public double cost;
+    public int duration; // in minutes
     
     public Flight(String source, String destination, double cost, int duration) {
         this.source = source;
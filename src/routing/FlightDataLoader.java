@@ -0,0 +1,41 @@
+package routing;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads the capitals/flights text file into a RouteNetwork.
+// Capital lines have three fields (name, latitude, longitude) and flight
+// lines have four (source, destination, $price, duration in minutes),
+// and each group may start with a line holding its count, as in the README.
+public class FlightDataLoader {
+    private FlightDataLoader() {
+    }
+
+    // The file is read as UTF-8, as ParallelFlightLoader reads it
+    public static RouteNetwork load(String path) throws IOException {
+        try (Reader reader = new FileReader(path, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    // Lines that cannot be read are reported on stderr and skipped
+    public static RouteNetwork load(Reader reader) throws IOException {
+        List<String> errors = new ArrayList<>();
+        RouteNetwork network = load(reader, errors);
+        for (String error : errors) {
+            System.err.println(error);
+        }
+        return network;
+    }
+
+    // Collects a "Line N: ..." message for every line that cannot be read
+    public static RouteNetwork load(Reader reader, List<String> errors) throws IOException {
+        FlightDataParser parser = new FlightDataParser();
+        parser.parse(reader);
+        return parser.finish(errors);
+    }
+}
@@ -0,0 +1,399 @@
+package routing;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Single-pass parser for the capitals/flights text file. Lines are cut
+// straight out of a char buffer and their numbers parsed in place, so apart
+// from the name of each new city nothing is allocated per line.
+//
+// Reads the README layout, where a capital count precedes the capital lines
+// and a route count precedes the flight lines, as well as files without the
+// counts, where three fields make a capital and four a flight. Problems are
+// collected as "Line N: ..." messages and the offending line is skipped.
+//
+// Flights are collected in primitive buffers and staged into the graph in
+// bulk. A chunk parser reads flight lines only, from a slice of the route
+// section, and leaves the graph alone: names are resolved against a shared
+// read-only index, unknown ones get chunk-local ids, and append() merges the
+// chunk into the parser that read everything before it.
+final class FlightDataParser {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_FLIGHTS = 1024;
+    private static final int CAPITAL_FIELDS = 3;
+    private static final int FLIGHT_FIELDS = 4; // later fields are ignored
+    private static final int FAST_PATH_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private enum Section { ANY, CAPITALS, FLIGHTS }
+
+    private final FlightGraph graph;       // null for a chunk parser
+    private final List<Capital> capitals = new ArrayList<>();
+    private final CityIndex knownCities;
+    private final CityIndex newCities;     // chunk parser: names missing from knownCities
+    private final List<String> newCityNames = new ArrayList<>();
+
+    // Parsed flights; a chunk parser stores new city k as -(k + 1)
+    private int[] sources = new int[INITIAL_FLIGHTS];
+    private int[] destinations = new int[INITIAL_FLIGHTS];
+    private double[] costs = new double[INITIAL_FLIGHTS];
+    private int[] durations = new int[INITIAL_FLIGHTS];
+    private int flightCount;
+
+    private final List<Integer> errorLines = new ArrayList<>();
+    private final List<String> errorMessages = new ArrayList<>();
+
+    private char[] buffer = new char[BUFFER_SIZE];
+    private final int[] fieldStarts = new int[FLIGHT_FIELDS];
+    private final int[] fieldEnds = new int[FLIGHT_FIELDS];
+
+    private int lineNumber;
+    private Section section = Section.ANY;
+    private int countLines;
+    private int expectedCapitals = -1;
+    private int capitalCountLine;
+    private int capitalLines;
+    private int expectedFlights = -1;
+    private int flightCountLine;
+    private int flightLines;
+
+    // Parser for a whole file, or for everything before the route section
+    FlightDataParser() {
+        graph = new FlightGraph();
+        knownCities = graph.getNameIndex();
+        newCities = null;
+    }
+
+    // Parser for a slice of the route section; knownCities must not change while it runs
+    FlightDataParser(CityIndex knownCities) {
+        graph = null;
+        this.knownCities = knownCities;
+        newCities = new CityIndex();
+        section = Section.FLIGHTS;
+        countLines = 2;
+    }
+
+    FlightGraph getGraph() {
+        return graph;
+    }
+
+    int getExpectedFlights() {
+        return expectedFlights;
+    }
+
+    void parse(Reader reader) throws IOException {
+        int filled = 0;
+        int scanned = 0;
+        while (true) {
+            if (filled == buffer.length) {
+                // A single line longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int read = reader.read(buffer, filled, buffer.length - filled);
+            if (read == -1) {
+                break;
+            }
+            filled += read;
+            int lineStart = 0;
+            for (int i = scanned; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    parseLine(lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            // Keep the unfinished last line for the next read
+            System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+            filled -= lineStart;
+            scanned = filled;
+        }
+        if (filled > 0) {
+            parseLine(0, filled);
+        }
+    }
+
+    // Takes over the flights, errors and lines of a chunk parser that read
+    // the lines right after this one's
+    void append(FlightDataParser chunk) {
+        stageFlights();
+        int[] cityIds = new int[chunk.newCityNames.size()];
+        for (int i = 0; i < cityIds.length; i++) {
+            cityIds[i] = graph.cityIndex(chunk.newCityNames.get(i));
+        }
+        for (int i = 0; i < chunk.flightCount; i++) {
+            if (chunk.sources[i] < 0) {
+                chunk.sources[i] = cityIds[-chunk.sources[i] - 1];
+            }
+            if (chunk.destinations[i] < 0) {
+                chunk.destinations[i] = cityIds[-chunk.destinations[i] - 1];
+            }
+        }
+        graph.addFlights(chunk.sources, chunk.destinations, chunk.costs, chunk.durations, chunk.flightCount);
+
+        for (int i = 0; i < chunk.errorLines.size(); i++) {
+            errorLines.add(lineNumber + chunk.errorLines.get(i));
+            errorMessages.add(chunk.errorMessages.get(i));
+        }
+        lineNumber += chunk.lineNumber;
+        flightLines += chunk.flightLines;
+    }
+
+    // Checks the counts, stages the flights and reports every problem to errors
+    RouteNetwork finish(List<String> errors) {
+        if (expectedFlights >= 0) {
+            checkCount(flightCountLine, expectedFlights, flightLines, "routes");
+        } else if (expectedCapitals >= 0) {
+            checkCount(capitalCountLine, expectedCapitals, capitalLines, "capitals");
+        }
+        stageFlights();
+        for (int i = 0; i < errorLines.size(); i++) {
+            errors.add("Line " + errorLines.get(i) + ": " + errorMessages.get(i));
+        }
+        return new RouteNetwork(capitals.toArray(new Capital[0]), graph);
+    }
+
+    private void stageFlights() {
+        graph.addFlights(sources, destinations, costs, durations, flightCount);
+        flightCount = 0;
+    }
+
+    private void parseLine(int start, int end) {
+        lineNumber++;
+        while (start < end && buffer[start] <= ' ') start++;
+        while (end > start && buffer[end - 1] <= ' ') end--;
+        if (start == end) {
+            return;
+        }
+
+        int fields = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer[i] == ',') {
+                if (fields < FLIGHT_FIELDS) {
+                    fieldStarts[fields] = fieldStart;
+                    fieldEnds[fields] = i;
+                    trimField(fields);
+                }
+                fields++;
+                fieldStart = i + 1;
+            }
+        }
+
+        if (fields == 1 && isCount(fieldStarts[0], fieldEnds[0])) {
+            countLine(parseInt(buffer, fieldStarts[0], fieldEnds[0]));
+            return;
+        }
+        boolean capital = section == Section.CAPITALS
+            || (section == Section.ANY && fields == CAPITAL_FIELDS);
+        if (capital) {
+            capitalLines++;
+            if (fields != CAPITAL_FIELDS) {
+                error("expected name, latitude, longitude in: ", start, end);
+            } else {
+                parseCapital(start, end);
+            }
+        } else {
+            flightLines++;
+            if (fields < FLIGHT_FIELDS) {
+                error("expected source, destination, $price, duration in: ", start, end);
+            } else {
+                parseFlight(start, end);
+            }
+        }
+    }
+
+    private void trimField(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && buffer[start] <= ' ') start++;
+        while (end > start && buffer[end - 1] <= ' ') end--;
+        fieldStarts[field] = start;
+        fieldEnds[field] = end;
+    }
+
+    private boolean isCount(int start, int end) {
+        if (end - start > 9) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (buffer[i] < '0' || buffer[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void countLine(int count) {
+        if (countLines == 0) {
+            section = Section.CAPITALS;
+            expectedCapitals = count;
+            capitalCountLine = lineNumber;
+        } else if (countLines == 1) {
+            checkCount(capitalCountLine, expectedCapitals, capitalLines, "capitals");
+            section = Section.FLIGHTS;
+            expectedFlights = count;
+            flightCountLine = lineNumber;
+        } else {
+            addError(lineNumber, "unexpected count line " + count);
+        }
+        countLines++;
+    }
+
+    private void checkCount(int line, int expected, int found, String what) {
+        if (expected != found) {
+            addError(line, "expected " + expected + " " + what + ", found " + found);
+        }
+    }
+
+    private void parseCapital(int start, int end) {
+        if (fieldStarts[0] == fieldEnds[0]) {
+            error("missing capital name in: ", start, end);
+            return;
+        }
+        double latitude;
+        double longitude;
+        try {
+            latitude = parseDouble(buffer, fieldStarts[1], fieldEnds[1]);
+            longitude = parseDouble(buffer, fieldStarts[2], fieldEnds[2]);
+        } catch (NumberFormatException e) {
+            error("invalid number in: ", start, end);
+            return;
+        }
+        String name = new String(buffer, fieldStarts[0], fieldEnds[0] - fieldStarts[0]);
+        capitals.add(new Capital(name, latitude, longitude));
+        graph.addCity(name, latitude, longitude);
+    }
+
+    private void parseFlight(int start, int end) {
+        if (fieldStarts[0] == fieldEnds[0] || fieldStarts[1] == fieldEnds[1]) {
+            error("missing city name in: ", start, end);
+            return;
+        }
+        double cost;
+        int duration;
+        try {
+            int costStart = fieldStarts[2];
+            if (costStart < fieldEnds[2] && buffer[costStart] == '$') {
+                costStart++;
+            }
+            cost = parseDouble(buffer, costStart, fieldEnds[2]);
+
+            int durationEnd = fieldEnds[3];
+            if (endsWithMin(fieldStarts[3], durationEnd)) {
+                durationEnd -= 3;
+                while (durationEnd > fieldStarts[3] && buffer[durationEnd - 1] <= ' ') durationEnd--;
+            }
+            duration = parseInt(buffer, fieldStarts[3], durationEnd);
+        } catch (NumberFormatException e) {
+            error("invalid number in: ", start, end);
+            return;
+        }
+        if (flightCount == sources.length) {
+            int capacity = flightCount * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+        }
+        sources[flightCount] = city(fieldStarts[0], fieldEnds[0]);
+        destinations[flightCount] = city(fieldStarts[1], fieldEnds[1]);
+        costs[flightCount] = cost;
+        durations[flightCount] = duration;
+        flightCount++;
+    }
+
+    private boolean endsWithMin(int start, int end) {
+        return end - start >= 3 && buffer[end - 3] == 'm' && buffer[end - 2] == 'i' && buffer[end - 1] == 'n';
+    }
+
+    // Known names are found without building a String
+    private int city(int start, int end) {
+        int index = knownCities.get(buffer, start, end);
+        if (index >= 0) {
+            return index;
+        }
+        if (graph != null) {
+            return graph.cityIndex(new String(buffer, start, end - start));
+        }
+        int local = newCities.get(buffer, start, end);
+        if (local < 0) {
+            String name = new String(buffer, start, end - start);
+            local = newCities.putIfAbsent(name, newCityNames.size());
+            newCityNames.add(name);
+        }
+        return -local - 1;
+    }
+
+    private void error(String message, int start, int end) {
+        addError(lineNumber, message + new String(buffer, start, end - start));
+    }
+
+    private void addError(int line, String message) {
+        errorLines.add(line);
+        errorMessages.add(message);
+    }
+
+    // Plain decimals ([-]digits[.digits]) with up to 15 significant digits are
+    // exact as a long divided by a power of ten, which is correctly rounded.
+    // Anything else goes through Double.parseDouble, which also does the errors.
+    static double parseDouble(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (point) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (i < end || !anyDigit || digits > FAST_PATH_DIGITS || fractionDigits >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(chars, start, end - start));
+        }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    static int parseInt(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        // Up to 9 digits cannot overflow; longer or unusual input takes the slow path
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(new String(chars, start, end - start));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return Integer.parseInt(new String(chars, start, end - start));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+}
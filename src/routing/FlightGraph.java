@@ -0,0 +1,369 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Graph representation using compressed sparse row (CSR) arrays.
+// Flights are staged by addFlight and packed into CSR form the first time
+// the adjacency is read, so iterating a city's flights costs O(degree).
+public class FlightGraph {
+    private String[] cities;
+    private final CityIndex cityIndex;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int cityCount;
+
+    // Staged flights, one entry per addFlight call
+    private int[] stagedSources;
+    private int[] stagedTargets;
+    private double[] stagedCosts;
+    private int[] stagedDurations;
+    private int stagedCount;
+
+    // CSR adjacency: the flights of city i are edges offsets[i] .. offsets[i + 1] - 1
+    private int[] offsets;
+    private int[] targets;
+    private double[] costs;
+    private int[] durations;
+    private double[] distances; // great-circle km, NaN when an end has no coordinates
+    private double[] durationWeights; // durations as doubles, so every criterion has a weight array
+    private final Map<Objective, double[]> objectiveWeights = new ConcurrentHashMap<>();
+    private boolean built;
+    private volatile long version; // bumped by every change to cities or flights
+    private boolean packedOnly; // CSR arrays given by fromPacked, not yet staged
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    public FlightGraph() {
+        cities = new String[INITIAL_CAPACITY];
+        cityIndex = new CityIndex();
+        latitudes = new double[INITIAL_CAPACITY];
+        longitudes = new double[INITIAL_CAPACITY];
+        cityCount = 0;
+        stagedSources = new int[INITIAL_CAPACITY];
+        stagedTargets = new int[INITIAL_CAPACITY];
+        stagedCosts = new double[INITIAL_CAPACITY];
+        stagedDurations = new int[INITIAL_CAPACITY];
+        stagedCount = 0;
+        built = false;
+    }
+
+    // A graph whose CSR arrays are already packed, e.g. read from a
+    // GraphSnapshot. The arrays are used as given, not copied.
+    static FlightGraph fromPacked(String[] cities, double[] latitudes, double[] longitudes,
+                                  int[] offsets, int[] targets, double[] costs, int[] durations, double[] distances) {
+        FlightGraph graph = new FlightGraph();
+        graph.cities = cities;
+        graph.latitudes = latitudes;
+        graph.longitudes = longitudes;
+        graph.cityCount = cities.length;
+        for (int i = 0; i < cities.length; i++) {
+            graph.cityIndex.putIfAbsent(cities[i], i);
+        }
+        graph.offsets = offsets;
+        graph.targets = targets;
+        graph.costs = costs;
+        graph.durations = durations;
+        graph.distances = distances;
+        graph.durationWeights = toDoubles(durations);
+        graph.built = true;
+        graph.packedOnly = true;
+        return graph;
+    }
+
+    // build() packs staged flights only, so a packed graph stages its edges
+    // before it first changes. Each pair is stored in both directions; stage it once.
+    private void stagePackedFlights() {
+        if (!packedOnly) {
+            return;
+        }
+        packedOnly = false;
+        if (cities.length == cityCount) {
+            int capacity = Math.max(INITIAL_CAPACITY, cityCount * 2);
+            cities = Arrays.copyOf(cities, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+        }
+        for (int city = 0; city < cityCount; city++) {
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                if (city <= targets[e]) {
+                    stage(city, targets[e], costs[e], durations[e]);
+                }
+            }
+        }
+    }
+
+    private int getCityIndex(String city) {
+        int index = cityIndex.putIfAbsent(city, cityCount);
+        if (index < cityCount) {
+            return index;
+        }
+        if (cityCount == cities.length) {
+            int capacity = cityCount * 2;
+            cities = Arrays.copyOf(cities, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+        }
+        cities[cityCount] = city.trim();
+        // Cities only seen in flight lines have no known position
+        latitudes[cityCount] = Double.NaN;
+        longitudes[cityCount] = Double.NaN;
+        changed();
+        return cityCount++;
+    }
+
+    // Registers a city with its coordinates and returns its index. Adding the
+    // capitals before their flights keeps graph indices equal to capital order.
+    public int addCity(String city, double latitude, double longitude) {
+        stagePackedFlights();
+        int index = getCityIndex(city);
+        latitudes[index] = latitude;
+        longitudes[index] = longitude;
+        changed();
+        return index;
+    }
+
+    public void addFlight(String source, String destination, double cost, int duration) {
+        stagePackedFlights();
+        stage(getCityIndex(source), getCityIndex(destination), cost, duration);
+        changed();
+    }
+
+    // Index of the named city, registering it without coordinates if it is new
+    int cityIndex(String city) {
+        stagePackedFlights();
+        return getCityIndex(city);
+    }
+
+    // Stages count flights given by city index, in order, as repeated addFlight calls would
+    void addFlights(int[] sourceIdx, int[] destIdx, double[] cost, int[] duration, int count) {
+        if (count == 0) {
+            return;
+        }
+        stagePackedFlights();
+        int needed = stagedCount + count;
+        if (needed > stagedSources.length) {
+            int capacity = Math.max(needed, stagedSources.length * 2);
+            stagedSources = Arrays.copyOf(stagedSources, capacity);
+            stagedTargets = Arrays.copyOf(stagedTargets, capacity);
+            stagedCosts = Arrays.copyOf(stagedCosts, capacity);
+            stagedDurations = Arrays.copyOf(stagedDurations, capacity);
+        }
+        System.arraycopy(sourceIdx, 0, stagedSources, stagedCount, count);
+        System.arraycopy(destIdx, 0, stagedTargets, stagedCount, count);
+        System.arraycopy(cost, 0, stagedCosts, stagedCount, count);
+        System.arraycopy(duration, 0, stagedDurations, stagedCount, count);
+        stagedCount = needed;
+        changed();
+    }
+
+    private void stage(int sourceIdx, int destIdx, double cost, int duration) {
+        if (stagedCount == stagedSources.length) {
+            int capacity = stagedCount * 2;
+            stagedSources = Arrays.copyOf(stagedSources, capacity);
+            stagedTargets = Arrays.copyOf(stagedTargets, capacity);
+            stagedCosts = Arrays.copyOf(stagedCosts, capacity);
+            stagedDurations = Arrays.copyOf(stagedDurations, capacity);
+        }
+        stagedSources[stagedCount] = sourceIdx;
+        stagedTargets[stagedCount] = destIdx;
+        stagedCosts[stagedCount] = cost;
+        stagedDurations[stagedCount] = duration;
+        stagedCount++;
+    }
+
+    // Packs the staged flights into CSR arrays. Every flight is stored in both
+    // directions, and a repeated city pair keeps the flight added last, which
+    // matches how the old adjacency matrix overwrote its cells.
+    private void build() {
+        int n = cityCount;
+        int[] rowStart = new int[n + 1];
+        for (int i = 0; i < stagedCount; i++) {
+            rowStart[stagedSources[i] + 1]++;
+            rowStart[stagedTargets[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+
+        int edgeSlots = rowStart[n];
+        int[] edgeTargets = new int[edgeSlots];
+        double[] edgeCosts = new double[edgeSlots];
+        int[] edgeDurations = new int[edgeSlots];
+        int[] next = Arrays.copyOf(rowStart, n);
+        for (int i = 0; i < stagedCount; i++) {
+            int source = stagedSources[i];
+            int destination = stagedTargets[i];
+
+            int e = next[source]++;
+            edgeTargets[e] = destination;
+            edgeCosts[e] = stagedCosts[i];
+            edgeDurations[e] = stagedDurations[i];
+
+            e = next[destination]++;
+            edgeTargets[e] = source;
+            edgeCosts[e] = stagedCosts[i];
+            edgeDurations[e] = stagedDurations[i];
+        }
+
+        // Collapse repeated targets within each row, compacting in place
+        int[] slot = new int[n];
+        Arrays.fill(slot, -1);
+        int write = 0;
+        for (int city = 0; city < n; city++) {
+            int start = write;
+            for (int e = rowStart[city]; e < rowStart[city + 1]; e++) {
+                int target = edgeTargets[e];
+                int existing = slot[target];
+                if (existing >= start) {
+                    edgeCosts[existing] = edgeCosts[e];
+                    edgeDurations[existing] = edgeDurations[e];
+                } else {
+                    slot[target] = write;
+                    edgeTargets[write] = target;
+                    edgeCosts[write] = edgeCosts[e];
+                    edgeDurations[write] = edgeDurations[e];
+                    write++;
+                }
+            }
+            rowStart[city] = start;
+        }
+        rowStart[n] = write;
+
+        offsets = rowStart;
+        targets = write == edgeSlots ? edgeTargets : Arrays.copyOf(edgeTargets, write);
+        costs = write == edgeSlots ? edgeCosts : Arrays.copyOf(edgeCosts, write);
+        durations = write == edgeSlots ? edgeDurations : Arrays.copyOf(edgeDurations, write);
+
+        // Distances are fixed once both ends are known, so compute them here
+        // rather than on every relaxation
+        distances = new double[write];
+        for (int city = 0; city < n; city++) {
+            for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                int target = targets[e];
+                distances[e] = GreatCircle.distance(latitudes[city], longitudes[city], latitudes[target], longitudes[target]);
+            }
+        }
+        durationWeights = toDoubles(durations);
+        objectiveWeights.clear();
+        built = true;
+    }
+
+    private static double[] toDoubles(int[] values) {
+        double[] doubles = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            doubles[i] = values[i];
+        }
+        return doubles;
+    }
+
+    // The packed arrays are rebuilt on next use, and anything derived from
+    // the old flights can tell from the version that it is stale
+    private void changed() {
+        built = false;
+        version++;
+    }
+
+    private void ensureBuilt() {
+        if (!built) {
+            build();
+        }
+    }
+
+    public Flight getDirectFlight(int sourceIdx, int destIdx) {
+        ensureBuilt();
+        for (int e = offsets[sourceIdx]; e < offsets[sourceIdx + 1]; e++) {
+            if (targets[e] == destIdx) {
+                return new Flight(cities[sourceIdx], cities[destIdx], costs[e], durations[e]);
+            }
+        }
+        return null;
+    }
+
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    public String getCity(int index) {
+        return cities[index];
+    }
+
+    // NaN when the city was never registered with coordinates
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    // Matches ignoring case and surrounding whitespace; -1 when unknown
+    public int getCityIndexByName(String city) {
+        return cityIndex.get(city);
+    }
+
+    public CityIndex getNameIndex() {
+        return cityIndex;
+    }
+
+    // Per-edge weights under the criterion, indexed like the CSR edges, so a
+    // search adds weights[e] instead of switching on the criterion per edge.
+    // Distance is NaN when either end has no coordinates, which no relaxation accepts.
+    double[] getWeights(Criterion criterion) {
+        ensureBuilt();
+        switch (criterion) {
+            case COST:
+                return costs;
+            case TIME:
+                return durationWeights;
+            default:
+                return distances;
+        }
+    }
+
+    // Per-edge weights of a combined objective, compiled on first use and
+    // kept until the flights change
+    double[] getWeights(Objective objective) {
+        ensureBuilt();
+        return objectiveWeights.computeIfAbsent(objective, o -> o.compile(this));
+    }
+
+    // Changes whenever a city or flight is added, e.g. to invalidate cached routes
+    public long getVersion() {
+        return version;
+    }
+
+    // Number of directed edges (each flight counts once per direction)
+    public int getEdgeCount() {
+        ensureBuilt();
+        return offsets[cityCount];
+    }
+
+    // Row offsets, length getCityCount() + 1. The returned arrays are shared,
+    // not copied, and must not be modified by callers.
+    public int[] getOffsets() {
+        ensureBuilt();
+        return offsets;
+    }
+
+    public int[] getTargets() {
+        ensureBuilt();
+        return targets;
+    }
+
+    public double[] getCosts() {
+        ensureBuilt();
+        return costs;
+    }
+
+    public int[] getDurations() {
+        ensureBuilt();
+        return durations;
+    }
+
+    public double[] getDistances() {
+        ensureBuilt();
+        return distances;
+    }
+}
@@ -0,0 +1,224 @@
+package routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary copy of a loaded RouteNetwork that opens without parsing text.
+// The file is memory-mapped, and every section is a little-endian array
+// copied out of the mapping in bulk, with no per-city or per-edge parsing.
+//
+// Layout (version 1), every section starting on an 8-byte boundary:
+//   header      magic, version, cityCount, edgeCount, capitalCount, nameBytes (ints, padded to 32 bytes)
+//   names       int[cityCount] end offset of each name, then the UTF-8 name bytes
+//   coordinates double[cityCount] latitudes, double[cityCount] longitudes
+//   csr         int[cityCount + 1] offsets, int[edgeCount] targets, int[edgeCount] durations,
+//               double[edgeCount] costs, double[edgeCount] distances
+//   capitals    int[capitalCount] city indices, double[capitalCount] latitudes and longitudes
+public class GraphSnapshot {
+    private static final int MAGIC = 0x46475331; // "FGS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private GraphSnapshot() {
+    }
+
+    public static void write(RouteNetwork network, Path path) throws IOException {
+        FlightGraph graph = network.getGraph();
+        Capital[] capitals = network.getCapitals();
+        int n = graph.getCityCount();
+        int edges = graph.getEdgeCount();
+
+        byte[][] names = new byte[n][];
+        int[] nameEnds = new int[n];
+        int nameBytes = 0;
+        for (int city = 0; city < n; city++) {
+            names[city] = graph.getCity(city).getBytes(StandardCharsets.UTF_8);
+            nameBytes += names[city].length;
+            nameEnds[city] = nameBytes;
+        }
+        Layout layout = new Layout(n, edges, capitals.length, nameBytes);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(n).putInt(edges)
+                .putInt(capitals.length).putInt(nameBytes);
+
+            buffer.position((int) layout.nameEnds);
+            buffer.asIntBuffer().put(nameEnds);
+            buffer.position((int) layout.names);
+            for (byte[] name : names) {
+                buffer.put(name);
+            }
+
+            double[] latitudes = new double[n];
+            double[] longitudes = new double[n];
+            for (int city = 0; city < n; city++) {
+                latitudes[city] = graph.getLatitude(city);
+                longitudes[city] = graph.getLongitude(city);
+            }
+            putDoubles(buffer, layout.latitudes, latitudes);
+            putDoubles(buffer, layout.longitudes, longitudes);
+
+            putInts(buffer, layout.offsets, graph.getOffsets());
+            putInts(buffer, layout.targets, graph.getTargets());
+            putInts(buffer, layout.durations, graph.getDurations());
+            putDoubles(buffer, layout.costs, graph.getCosts());
+            putDoubles(buffer, layout.distances, graph.getDistances());
+
+            int[] capitalCities = new int[capitals.length];
+            double[] capitalLatitudes = new double[capitals.length];
+            double[] capitalLongitudes = new double[capitals.length];
+            for (int i = 0; i < capitals.length; i++) {
+                capitalCities[i] = graph.getCityIndexByName(capitals[i].name);
+                capitalLatitudes[i] = capitals[i].latitude;
+                capitalLongitudes[i] = capitals[i].longitude;
+            }
+            putInts(buffer, layout.capitalCities, capitalCities);
+            putDoubles(buffer, layout.capitalLatitudes, capitalLatitudes);
+            putDoubles(buffer, layout.capitalLongitudes, capitalLongitudes);
+            buffer.force();
+        }
+    }
+
+    // Fails if the file is not a snapshot of a supported version or is truncated
+    public static RouteNetwork open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a graph snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported graph snapshot version " + version + " in " + path);
+            }
+            int n = buffer.getInt();
+            int edges = buffer.getInt();
+            int capitalCount = buffer.getInt();
+            int nameBytes = buffer.getInt();
+            if (n < 0 || edges < 0 || capitalCount < 0 || nameBytes < 0) {
+                throw new IOException("Corrupt graph snapshot header in " + path);
+            }
+            Layout layout = new Layout(n, edges, capitalCount, nameBytes);
+            if (fileSize < layout.size) {
+                throw new IOException("Truncated graph snapshot: " + path);
+            }
+
+            int[] nameEnds = getInts(buffer, layout.nameEnds, n);
+            byte[] nameData = new byte[nameBytes];
+            buffer.position((int) layout.names);
+            buffer.get(nameData);
+            String[] cities = new String[n];
+            for (int city = 0, start = 0; city < n; city++) {
+                int end = nameEnds[city];
+                if (end < start || end > nameBytes) {
+                    throw new IOException("Corrupt name table in graph snapshot " + path);
+                }
+                cities[city] = new String(nameData, start, end - start, StandardCharsets.UTF_8);
+                start = end;
+            }
+
+            double[] latitudes = getDoubles(buffer, layout.latitudes, n);
+            double[] longitudes = getDoubles(buffer, layout.longitudes, n);
+            int[] offsets = getInts(buffer, layout.offsets, n + 1);
+            if (offsets[n] != edges) {
+                throw new IOException("Corrupt edge arrays in graph snapshot " + path);
+            }
+            int[] targets = getInts(buffer, layout.targets, edges);
+            int[] durations = getInts(buffer, layout.durations, edges);
+            double[] costs = getDoubles(buffer, layout.costs, edges);
+            double[] distances = getDoubles(buffer, layout.distances, edges);
+            FlightGraph graph = FlightGraph.fromPacked(cities, latitudes, longitudes,
+                offsets, targets, costs, durations, distances);
+
+            int[] capitalCities = getInts(buffer, layout.capitalCities, capitalCount);
+            double[] capitalLatitudes = getDoubles(buffer, layout.capitalLatitudes, capitalCount);
+            double[] capitalLongitudes = getDoubles(buffer, layout.capitalLongitudes, capitalCount);
+            Capital[] capitals = new Capital[capitalCount];
+            for (int i = 0; i < capitalCount; i++) {
+                if (capitalCities[i] < 0 || capitalCities[i] >= n) {
+                    throw new IOException("Corrupt capital table in graph snapshot " + path);
+                }
+                capitals[i] = new Capital(cities[capitalCities[i]], capitalLatitudes[i], capitalLongitudes[i]);
+            }
+            return new RouteNetwork(capitals, graph);
+        }
+    }
+
+    private static void putInts(ByteBuffer buffer, long position, int[] values) {
+        buffer.position((int) position);
+        buffer.asIntBuffer().put(values);
+    }
+
+    private static void putDoubles(ByteBuffer buffer, long position, double[] values) {
+        buffer.position((int) position);
+        buffer.asDoubleBuffer().put(values);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, long position, int count) {
+        int[] values = new int[count];
+        buffer.position((int) position);
+        buffer.asIntBuffer().get(values);
+        return values;
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, long position, int count) {
+        double[] values = new double[count];
+        buffer.position((int) position);
+        buffer.asDoubleBuffer().get(values);
+        return values;
+    }
+
+    // Byte position of every section, derived from the header counts
+    private static final class Layout {
+        final long nameEnds;
+        final long names;
+        final long latitudes;
+        final long longitudes;
+        final long offsets;
+        final long targets;
+        final long durations;
+        final long costs;
+        final long distances;
+        final long capitalCities;
+        final long capitalLatitudes;
+        final long capitalLongitudes;
+        final long size;
+
+        Layout(int cityCount, int edgeCount, int capitalCount, int nameBytes) throws IOException {
+            nameEnds = HEADER_BYTES;
+            names = align(nameEnds + 4L * cityCount);
+            latitudes = align(names + nameBytes);
+            longitudes = latitudes + 8L * cityCount;
+            offsets = longitudes + 8L * cityCount;
+            targets = align(offsets + 4L * (cityCount + 1));
+            durations = align(targets + 4L * edgeCount);
+            costs = align(durations + 4L * edgeCount);
+            distances = costs + 8L * edgeCount;
+            capitalCities = distances + 8L * edgeCount;
+            capitalLatitudes = align(capitalCities + 4L * capitalCount);
+            capitalLongitudes = capitalLatitudes + 8L * capitalCount;
+            size = capitalLongitudes + 8L * capitalCount;
+            // A single mapping and int buffer positions cover at most 2 GB
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Graph too large for a snapshot: " + size + " bytes");
+            }
+        }
+
+        private static long align(long position) {
+            return (position + 7) & ~7L;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package routing;
+
+// Great-circle distance between two points using the Haversine formula
+public final class GreatCircle {
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private GreatCircle() {
+    }
+
+    public static double distance(Capital source, Capital target) {
+        return distance(source.latitude, source.longitude, target.latitude, target.longitude);
+    }
+
+    // Coordinates in degrees, result in kilometers
+    public static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1);
+        double lon1 = Math.toRadians(longitude1);
+        double lat2 = Math.toRadians(latitude2);
+        double lon2 = Math.toRadians(longitude2);
+
+        double dLat = lat2 - lat1;
+        double dLon = lon2 - lon1;
+
+        double a = Math.sin(dLat/2) * Math.sin(dLat/2) +
+                   Math.cos(lat1) * Math.cos(lat2) *
+                   Math.sin(dLon/2) * Math.sin(dLon/2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+
+        return EARTH_RADIUS_KM * c;
+    }
+}
@@ -0,0 +1,66 @@
+package routing;
+
+// Lower bounds from geography. No route is shorter than the great-circle
+// distance to the target, and no route is faster than covering that distance
+// at the network's highest observed speed. Cost has no geographic bound, so
+// it gets 0 and A* degrades to plain Dijkstra there. The speed is measured
+// again once the flights change.
+public class GreatCircleBound implements LowerBound {
+    private final FlightGraph graph;
+    private double minutesPerKm;
+    private volatile long version; // graph version minutesPerKm was measured at
+
+    public GreatCircleBound(FlightGraph graph) {
+        this.graph = graph;
+        measure();
+    }
+
+    private synchronized void measure() {
+        long current = graph.getVersion();
+        minutesPerKm = 1 / maxSpeed(graph);
+        version = current;
+    }
+
+    // Highest km/min over all flights. A flight with no duration makes the
+    // speed unbounded, and so does a flight to or from a city without
+    // coordinates: a route through that city can cover any distance in the
+    // time of its flights. Either turns the time bound off.
+    static double maxSpeed(FlightGraph graph) {
+        double[] distances = graph.getDistances();
+        int[] durations = graph.getDurations();
+        double maxSpeed = 0;
+        for (int e = 0; e < distances.length; e++) {
+            if (Double.isNaN(distances[e])) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if (distances[e] == 0) {
+                continue;
+            }
+            if (durations[e] <= 0) {
+                return Double.POSITIVE_INFINITY;
+            }
+            maxSpeed = Math.max(maxSpeed, distances[e] / durations[e]);
+        }
+        return maxSpeed == 0 ? Double.POSITIVE_INFINITY : maxSpeed;
+    }
+
+    public double getMinutesPerKm() {
+        if (version != graph.getVersion()) {
+            measure();
+        }
+        return minutesPerKm;
+    }
+
+    @Override
+    public double estimate(int city, int target, Criterion criterion) {
+        if (criterion == Criterion.COST) {
+            return 0;
+        }
+        double km = GreatCircle.distance(graph.getLatitude(city), graph.getLongitude(city),
+                graph.getLatitude(target), graph.getLongitude(target));
+        if (Double.isNaN(km)) {
+            return 0; // no coordinates, no bound
+        }
+        return criterion == Criterion.DISTANCE ? km : km * getMinutesPerKm();
+    }
+}
@@ -0,0 +1,129 @@
+package routing;
+
+import java.util.Arrays;
+
+// d-ary min-heap keyed by city index, with decrease-key support.
+// A wider arity keeps the heap shallow, which suits Dijkstra's mix of
+// many decrease-key calls and comparatively few removals.
+class IndexedDaryHeap {
+    private final int arity;
+    private final int[] heap;      // heap slot -> city
+    private final int[] position;  // city -> heap slot, -1 when not queued
+    private final double[] keys;   // city -> current key
+    private int size;
+
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(position, -1);
+        size = 0;
+    }
+
+    public int capacity() {
+        return heap.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int city) {
+        return position[city] >= 0;
+    }
+
+    public double peekKey() {
+        return keys[heap[0]];
+    }
+
+    // Inserts the city, or lowers its key if it is already queued with a larger one
+    public void insertOrDecrease(int city, double key) {
+        int slot = position[city];
+        if (slot < 0) {
+            slot = size++;
+            heap[slot] = city;
+            position[city] = slot;
+            keys[city] = key;
+            siftUp(slot);
+        } else if (key < keys[city]) {
+            keys[city] = key;
+            siftUp(slot);
+        }
+    }
+
+    public int pollMin() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    // Empties the heap in O(size) without touching the rest of the index
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int city = heap[slot];
+        double key = keys[city];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) / arity;
+            int parent = heap[parentSlot];
+            if (keys[parent] <= key) {
+                break;
+            }
+            heap[slot] = parent;
+            position[parent] = slot;
+            slot = parentSlot;
+        }
+        heap[slot] = city;
+        position[city] = slot;
+    }
+
+    private void siftDown(int slot) {
+        int city = heap[slot];
+        double key = keys[city];
+        while (true) {
+            int firstChild = slot * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + arity, size);
+            int bestSlot = firstChild;
+            double bestKey = keys[heap[firstChild]];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                double childKey = keys[heap[child]];
+                if (childKey < bestKey) {
+                    bestKey = childKey;
+                    bestSlot = child;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int best = heap[bestSlot];
+            heap[slot] = best;
+            position[best] = slot;
+            slot = bestSlot;
+        }
+        heap[slot] = city;
+        position[city] = slot;
+    }
+}
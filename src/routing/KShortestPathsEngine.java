@@ -0,0 +1,309 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+// Yen's algorithm for the K best loopless routes between two cities, e.g.
+// backup itineraries when a leg sells out. Each new route deviates from an
+// earlier one at some spur city: the earlier route's prefix is kept, the
+// flights the accepted routes take out of the spur city with that same
+// prefix are banned, the prefix cities are banned, and the rest of the way
+// is searched again.
+//
+// Two things keep the spur searches cheap. A Dijkstra search from the
+// target, stopped once it settles the source, gives the cities around the
+// best route their exact remaining distance, and every other city the
+// search radius as a bound. Banning flights only makes routes longer, so
+// this stays a consistent lower bound, and each spur search is an A* search
+// that heads straight for the target. And with Lawler's refinement a route
+// only spawns spur searches from where it left its parent route, since
+// earlier spur cities would find the same candidates again.
+public class KShortestPathsEngine {
+    private static final int ARITY = 4;
+
+    private final FlightGraph graph;
+    private final WorkspacePool remainingWorkspaces = new WorkspacePool(ARITY);
+    private final WorkspacePool spurWorkspaces = new WorkspacePool(ARITY);
+    private final ThreadLocal<Query> queries = new ThreadLocal<>();
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public KShortestPathsEngine(FlightGraph graph) {
+        this.graph = graph;
+    }
+
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Up to k routes, best first; fewer when the cities have fewer loopless
+    // routes, and none when either city is unknown or they are not connected
+    public PathResult[] findRoutes(int sourceIdx, int destIdx, Criterion criterion, int k) {
+        return findRoutes(sourceIdx, destIdx, graph.getWeights(criterion), k);
+    }
+
+    public PathResult[] findRoutes(int sourceIdx, int destIdx, Objective objective, int k) {
+        return findRoutes(sourceIdx, destIdx, graph.getWeights(objective), k);
+    }
+
+    private PathResult[] findRoutes(int sourceIdx, int destIdx, double[] weights, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1: " + k);
+        }
+        int n = graph.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return new PathResult[0];
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Query query = query(n);
+        query.start();
+
+        // The graph is symmetric, so searching from the target gives the
+        // remaining distance to it
+        SearchWorkspace remaining = remainingWorkspaces.get(n);
+        searchRemaining(destIdx, sourceIdx, weights, remaining, query);
+
+        Candidate[] accepted = new Candidate[k];
+        int acceptedCount = 0;
+        if (remaining.isSettled(sourceIdx)) {
+            query.banStart();
+            accepted[acceptedCount++] = spur(sourceIdx, destIdx, weights, remaining, null, 0, 0, query);
+        }
+        int[] targets = graph.getTargets();
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        while (acceptedCount > 0 && acceptedCount < k) {
+            Candidate last = accepted[acceptedCount - 1];
+            int[] edges = last.edges;
+            double rootWeight = 0;
+            for (int i = 0; i < last.deviation; i++) {
+                rootWeight += weights[edges[i]];
+            }
+            for (int i = last.deviation; i < edges.length; i++) {
+                query.banStart();
+                // Every accepted route sharing this prefix leaves the spur city another way
+                for (int a = 0; a < acceptedCount; a++) {
+                    int[] other = accepted[a].edges;
+                    if (other.length > i && samePrefix(other, edges, i)) {
+                        query.banEdge(other[i]);
+                    }
+                }
+                int city = sourceIdx;
+                for (int j = 0; j < i; j++) {
+                    query.banCity(city);
+                    city = targets[edges[j]];
+                }
+                Candidate candidate = spur(city, destIdx, weights, remaining, edges, i, rootWeight, query);
+                if (candidate != null) {
+                    candidates.add(candidate);
+                }
+                rootWeight += weights[edges[i]];
+            }
+            Candidate next = candidates.poll();
+            if (next == null || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            accepted[acceptedCount++] = next;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            acceptedCount = 0; // a cancelled spur search may have missed a route
+        }
+
+        PathResult[] routes = new PathResult[acceptedCount];
+        for (int i = 0; i < acceptedCount; i++) {
+            query.route.setFromEdges(graph, sourceIdx, accepted[i].edges, accepted[i].edges.length);
+            routes[i] = query.route.toPathResult(graph);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(query.settled, query.relaxed, query.heapOperations, System.nanoTime() - start);
+        }
+        return routes;
+    }
+
+    // Settles cities from the target outwards until the source. Cities left
+    // unsettled are at least the source's distance away, or unreachable when
+    // the search ran out of cities first.
+    private void searchRemaining(int destIdx, int sourceIdx, double[] weights, SearchWorkspace workspace, Query query) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.reach(destIdx, 0, -1, -1);
+        heap.insertOrDecrease(destIdx, 0);
+        query.heapOperations++;
+        query.radius = Double.POSITIVE_INFINITY;
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            query.heapOperations++;
+            workspace.settle(current);
+            if (Cancellation.requested(++query.settled)) {
+                break;
+            }
+            double base = workspace.distance(current);
+            if (current == sourceIdx) {
+                query.radius = base;
+                break;
+            }
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                if (workspace.isSettled(next)) {
+                    continue;
+                }
+                double candidate = base + weights[e];
+                query.relaxed++;
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, current, e);
+                    heap.insertOrDecrease(next, candidate);
+                    query.heapOperations++;
+                }
+            }
+        }
+    }
+
+    // A* from the spur city to the target around the banned cities and
+    // flights, keyed by the unbanned remaining distance bound. Returns the
+    // root's first rootLength flights followed by the spur route, or null.
+    private Candidate spur(int spurCity, int destIdx, double[] weights, SearchWorkspace remaining,
+                           int[] root, int rootLength, double rootWeight, Query query) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        SearchWorkspace workspace = spurWorkspaces.get(graph.getCityCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.reach(spurCity, 0, -1, -1);
+        heap.insertOrDecrease(spurCity, query.bound(remaining, spurCity));
+        query.heapOperations++;
+
+        boolean found = false;
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            query.heapOperations++;
+            if (current == destIdx) {
+                found = true;
+                break;
+            }
+            workspace.settle(current);
+            if (Cancellation.requested(++query.settled)) {
+                break;
+            }
+            double base = workspace.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                if (workspace.isSettled(next) || query.isBanned(next, e)) {
+                    continue;
+                }
+                double candidate = base + weights[e];
+                query.relaxed++;
+                double bound = query.bound(remaining, next);
+                if (candidate < workspace.distance(next) && bound < Double.POSITIVE_INFINITY) {
+                    workspace.reach(next, candidate, current, e);
+                    heap.insertOrDecrease(next, candidate + bound);
+                    query.heapOperations++;
+                }
+            }
+        }
+        if (!found) {
+            return null;
+        }
+
+        int spurLength = 0;
+        for (int city = destIdx; city != spurCity; city = workspace.previous(city)) {
+            spurLength++;
+        }
+        int[] edges = new int[rootLength + spurLength];
+        if (rootLength > 0) {
+            System.arraycopy(root, 0, edges, 0, rootLength);
+        }
+        int i = edges.length;
+        for (int city = destIdx; city != spurCity; city = workspace.previous(city)) {
+            edges[--i] = workspace.previousEdge(city);
+        }
+        return new Candidate(edges, rootWeight + workspace.distance(destIdx), rootLength);
+    }
+
+    private static boolean samePrefix(int[] a, int[] b, int length) {
+        return Arrays.equals(a, 0, length, b, 0, length);
+    }
+
+    private Query query(int cityCount) {
+        Query query = queries.get();
+        int edgeCount = graph.getEdgeCount();
+        if (query == null || query.bannedCity.length < cityCount || query.bannedEdge.length < edgeCount) {
+            query = new Query(cityCount, edgeCount);
+            queries.set(query);
+        }
+        return query;
+    }
+
+    // A loopless route as CSR edges from the source, and the index of the
+    // flight where it left the route it was spurred from
+    private static final class Candidate implements Comparable<Candidate> {
+        final int[] edges;
+        final double weight;
+        final int deviation;
+
+        Candidate(int[] edges, double weight, int deviation) {
+            this.edges = edges;
+            this.weight = weight;
+            this.deviation = deviation;
+        }
+
+        // Fewer flights first on equal weight
+        @Override
+        public int compareTo(Candidate other) {
+            int byWeight = Double.compare(weight, other.weight);
+            return byWeight != 0 ? byWeight : Integer.compare(edges.length, other.edges.length);
+        }
+    }
+
+    // Per-thread ban marks, valid when they match the current ban generation
+    private static final class Query {
+        final int[] bannedCity;
+        final int[] bannedEdge;
+        final Route route = new Route();
+        int generation;
+        double radius; // how far the search from the target got; infinite when it ran out of cities
+
+        int settled;
+        int relaxed;
+        int heapOperations;
+
+        Query(int cityCount, int edgeCount) {
+            bannedCity = new int[cityCount];
+            bannedEdge = new int[edgeCount];
+        }
+
+        void start() {
+            settled = 0;
+            relaxed = 0;
+            heapOperations = 0;
+        }
+
+        // Lifts every ban in O(1)
+        void banStart() {
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(bannedCity, 0);
+                Arrays.fill(bannedEdge, 0);
+                generation = 1;
+            }
+        }
+
+        void banCity(int city) {
+            bannedCity[city] = generation;
+        }
+
+        void banEdge(int edge) {
+            bannedEdge[edge] = generation;
+        }
+
+        // Exact remaining distance for cities the target search settled, its radius otherwise
+        double bound(SearchWorkspace remaining, int city) {
+            return remaining.isSettled(city) ? remaining.distance(city) : radius;
+        }
+
+        boolean isBanned(int city, int edge) {
+            return bannedCity[city] == generation || bannedEdge[edge] == generation;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package routing;
+
+// ALT lower bound: the best triangle-inequality bound from the landmark
+// tables, optionally combined with another bound. The larger of two
+// admissible bounds is still admissible, so geography keeps helping for
+// distance and time where the landmarks happen to be weak.
+public class LandmarkBound implements LowerBound {
+    private final LandmarkTables tables;
+    private final LowerBound fallback;
+
+    public LandmarkBound(LandmarkTables tables) {
+        this(tables, null);
+    }
+
+    public LandmarkBound(LandmarkTables tables, LowerBound fallback) {
+        this.tables = tables;
+        this.fallback = fallback;
+    }
+
+    public LandmarkTables getTables() {
+        return tables;
+    }
+
+    @Override
+    public double estimate(int city, int target, Criterion criterion) {
+        double bound = tables.lowerBound(city, target, criterion);
+        if (fallback != null) {
+            bound = Math.max(bound, fallback.estimate(city, target, criterion));
+        }
+        return bound;
+    }
+}
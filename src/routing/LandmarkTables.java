@@ -0,0 +1,385 @@
+package routing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+// Precomputed distances from K landmark cities to every city, per criterion,
+// for ALT (A*, landmarks, triangle inequality) lower bounds. For any
+// landmark L, |d(L,t) - d(L,v)| <= d(v,t) on the symmetric flight graph.
+// Tables are flat arrays indexed [criterion][landmark * cityCount + city].
+public class LandmarkTables {
+    // How landmarks are picked
+    public enum Selection {
+        // Repeatedly take the city farthest from all landmarks chosen so far
+        FARTHEST,
+        // Goldberg-Werneck "avoid": grow a shortest-path tree from a random
+        // root and descend into the subtree the current landmarks cover worst
+        AVOID
+    }
+
+    private static final int MAGIC = 0x414C5431; // "ALT1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int ARITY = 4;
+
+    private final int cityCount;
+    private final long graphFingerprint;
+    private final int[] landmarks;
+    private final double[][] tables;
+
+    private LandmarkTables(int cityCount, long graphFingerprint, int[] landmarks, double[][] tables) {
+        this.cityCount = cityCount;
+        this.graphFingerprint = graphFingerprint;
+        this.landmarks = landmarks;
+        this.tables = tables;
+    }
+
+    public static LandmarkTables build(FlightGraph graph, int landmarkCount, Selection selection) {
+        return build(graph, landmarkCount, selection, Criterion.TIME, 1);
+    }
+
+    // selectionCriterion is the weight used to judge "far"; tables are built for every criterion
+    public static LandmarkTables build(FlightGraph graph, int landmarkCount, Selection selection,
+                                       Criterion selectionCriterion, long seed) {
+        int n = graph.getCityCount();
+        int[] landmarks = selection == Selection.FARTHEST
+            ? selectFarthest(graph, Math.min(landmarkCount, n), selectionCriterion, seed)
+            : selectAvoid(graph, Math.min(landmarkCount, n), selectionCriterion, seed);
+
+        Criterion[] criteria = Criterion.values();
+        double[][] tables = new double[criteria.length][landmarks.length * n];
+        // Every landmark/criterion pair is an independent one-to-all search
+        IntStream.range(0, criteria.length * landmarks.length).parallel().forEach(job -> {
+            Criterion criterion = criteria[job / landmarks.length];
+            int slot = job % landmarks.length;
+            double[] row = oneToAll(graph, landmarks[slot], criterion, null);
+            System.arraycopy(row, 0, tables[criterion.ordinal()], slot * n, n);
+        });
+        return new LandmarkTables(n, fingerprint(graph), landmarks, tables);
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    public int getLandmark(int slot) {
+        return landmarks[slot];
+    }
+
+    // Largest triangle-inequality bound over all landmarks. Infinite when some
+    // landmark reaches exactly one of the two cities, since then they are not connected.
+    public double lowerBound(int city, int target, Criterion criterion) {
+        double[] table = tables[criterion.ordinal()];
+        double best = 0;
+        for (int slot = 0, base = 0; slot < landmarks.length; slot++, base += cityCount) {
+            double toCity = table[base + city];
+            double toTarget = table[base + target];
+            boolean cityReached = toCity < Double.POSITIVE_INFINITY;
+            boolean targetReached = toTarget < Double.POSITIVE_INFINITY;
+            if (cityReached != targetReached) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if (cityReached) {
+                best = Math.max(best, Math.abs(toTarget - toCity));
+            }
+        }
+        return best;
+    }
+
+    // Whether these tables were built from a graph with the same cities and flights
+    public boolean matches(FlightGraph graph) {
+        return graph.getCityCount() == cityCount && fingerprint(graph) == graphFingerprint;
+    }
+
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(cityCount);
+            out.writeLong(graphFingerprint);
+            out.writeInt(tables.length);
+            out.writeInt(landmarks.length);
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+            for (double[] table : tables) {
+                for (double value : table) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    // Fails if the file is not a landmark table or was built for another graph
+    public static LandmarkTables load(String path, FlightGraph graph) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a landmark table file: " + path);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported landmark table version " + version + " in " + path);
+            }
+            int cityCount = in.readInt();
+            long fingerprint = in.readLong();
+            int criteria = in.readInt();
+            int landmarkCount = in.readInt();
+            if (criteria != Criterion.values().length) {
+                throw new IOException("Landmark table has " + criteria + " criteria, expected " + Criterion.values().length);
+            }
+            int[] landmarks = new int[landmarkCount];
+            for (int i = 0; i < landmarkCount; i++) {
+                landmarks[i] = in.readInt();
+            }
+            double[][] tables = new double[criteria][landmarkCount * cityCount];
+            for (double[] table : tables) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = in.readDouble();
+                }
+            }
+            LandmarkTables result = new LandmarkTables(cityCount, fingerprint, landmarks, tables);
+            if (!result.matches(graph)) {
+                throw new IOException("Landmark table " + path + " was built for a different flight graph");
+            }
+            return result;
+        }
+    }
+
+    // Hash of the CSR arrays, so stale tables are detected after the network changes
+    static long fingerprint(FlightGraph graph) {
+        long hash = graph.getCityCount();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] costs = graph.getCosts();
+        int[] durations = graph.getDurations();
+        double[] distances = graph.getDistances();
+        for (int offset : offsets) {
+            hash = hash * 31 + offset;
+        }
+        for (int e = 0; e < targets.length; e++) {
+            hash = hash * 31 + targets[e];
+            hash = hash * 31 + Double.doubleToLongBits(costs[e]);
+            hash = hash * 31 + durations[e];
+            hash = hash * 31 + Double.doubleToLongBits(distances[e]);
+        }
+        return hash;
+    }
+
+    // Plain Dijkstra from one city to all others; unreachable cities stay infinite.
+    // When parents is given it receives each city's predecessor in the tree.
+    static double[] oneToAll(FlightGraph graph, int source, Criterion criterion, int[] parents) {
+        return oneToAll(graph, source, criterion, parents, null);
+    }
+
+    // As above; depths, when given with parents, receives each city's number
+    // of flights from the source along the tree
+    private static double[] oneToAll(FlightGraph graph, int source, Criterion criterion, int[] parents, int[] depths) {
+        int n = graph.getCityCount();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        double[] distances = new double[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        if (parents != null) {
+            Arrays.fill(parents, -1);
+        }
+        boolean[] settled = new boolean[n];
+        IndexedDaryHeap heap = new IndexedDaryHeap(n, ARITY);
+        distances[source] = 0;
+        if (depths != null) {
+            depths[source] = 0;
+        }
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            settled[current] = true;
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                double candidate = distances[current] + weights[e];
+                if (!settled[next] && candidate < distances[next]) {
+                    distances[next] = candidate;
+                    if (parents != null) {
+                        parents[next] = current;
+                        if (depths != null) {
+                            depths[next] = depths[current] + 1;
+                        }
+                    }
+                    heap.insertOrDecrease(next, candidate);
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static int[] selectFarthest(FlightGraph graph, int count, Criterion criterion, long seed) {
+        int n = graph.getCityCount();
+        int[] landmarks = new int[count];
+        if (count == 0) {
+            return landmarks;
+        }
+        // Start from the city farthest from a random one rather than the random one itself
+        double[] fromStart = oneToAll(graph, new Random(seed).nextInt(n), criterion, null);
+        double[] nearest = new double[n];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int next = farthest(fromStart, nearest);
+        for (int i = 0; i < count; i++) {
+            landmarks[i] = next;
+            double[] fromLandmark = oneToAll(graph, next, criterion, null);
+            for (int city = 0; city < n; city++) {
+                nearest[city] = Math.min(nearest[city], fromLandmark[city]);
+            }
+            nearest[next] = -1; // never pick the same landmark twice
+            next = farthest(nearest, nearest);
+        }
+        return landmarks;
+    }
+
+    // City maximising score, preferring cities no landmark reaches (other components)
+    private static int farthest(double[] score, double[] nearest) {
+        int best = 0;
+        for (int city = 1; city < score.length; city++) {
+            if (nearest[city] >= 0 && (score[city] > score[best] || nearest[best] < 0)) {
+                best = city;
+            }
+        }
+        return best;
+    }
+
+    private static int[] selectAvoid(FlightGraph graph, int count, Criterion criterion, long seed) {
+        int n = graph.getCityCount();
+        Random random = new Random(seed);
+        int[] landmarks = new int[count];
+        boolean[] isLandmark = new boolean[n];
+        double[][] chosenTables = new double[count][];
+        int[] parents = new int[n];
+        int[] depths = new int[n];
+        double[] weight = new double[n];
+        double[] size = new double[n];
+        boolean[] covered = new boolean[n];
+        int[] order = new int[n];
+        int[] scratch = new int[n];
+
+        for (int i = 0; i < count; i++) {
+            int root = random.nextInt(n);
+            double[] fromRoot = oneToAll(graph, root, criterion, parents, depths);
+
+            // How badly the current landmarks bound d(root, v)
+            for (int city = 0; city < n; city++) {
+                double bound = 0;
+                for (int j = 0; j < i; j++) {
+                    double a = chosenTables[j][root];
+                    double b = chosenTables[j][city];
+                    if (a < Double.POSITIVE_INFINITY && b < Double.POSITIVE_INFINITY) {
+                        bound = Math.max(bound, Math.abs(a - b));
+                    }
+                }
+                weight[city] = fromRoot[city] < Double.POSITIVE_INFINITY ? fromRoot[city] - bound : 0;
+            }
+
+            // Subtree sizes, children before parents; subtrees holding a landmark count as covered
+            int reached = 0;
+            for (int city = 0; city < n; city++) {
+                if (fromRoot[city] < Double.POSITIVE_INFINITY) {
+                    order[reached++] = city;
+                }
+            }
+            sortByDistanceDescending(order, reached, fromRoot, depths, scratch);
+            Arrays.fill(covered, false);
+            Arrays.fill(size, 0, n, 0);
+            for (int k = 0; k < reached; k++) {
+                int city = order[k];
+                if (isLandmark[city]) {
+                    covered[city] = true;
+                }
+                size[city] = covered[city] ? 0 : size[city] + weight[city];
+                int parent = parents[city];
+                if (parent >= 0) {
+                    if (covered[city]) {
+                        covered[parent] = true;
+                    } else {
+                        size[parent] += size[city];
+                    }
+                }
+            }
+
+            // Descend from the root towards the heaviest uncovered subtree
+            int current = root;
+            while (true) {
+                int bestChild = -1;
+                for (int k = 0; k < reached; k++) {
+                    int city = order[k];
+                    if (parents[city] == current && !covered[city]
+                            && (bestChild == -1 || size[city] > size[bestChild])) {
+                        bestChild = city;
+                    }
+                }
+                if (bestChild == -1) {
+                    break;
+                }
+                current = bestChild;
+            }
+            if (isLandmark[current]) {
+                current = firstNonLandmark(isLandmark, random);
+            }
+            landmarks[i] = current;
+            isLandmark[current] = true;
+            chosenTables[i] = oneToAll(graph, current, criterion, null);
+        }
+        return landmarks;
+    }
+
+    private static int firstNonLandmark(boolean[] isLandmark, Random random) {
+        int start = random.nextInt(isLandmark.length);
+        for (int k = 0; k < isLandmark.length; k++) {
+            int city = (start + k) % isLandmark.length;
+            if (!isLandmark[city]) {
+                return city;
+            }
+        }
+        return start;
+    }
+
+    // Farthest first, deeper first among equal distances, so every city comes
+    // before its tree parent even across zero-weight flights. Distances are
+    // non-negative, so their bit patterns order like the values. Bottom-up
+    // merge sort through scratch, which must hold count cities.
+    private static void sortByDistanceDescending(int[] cities, int count, double[] distances,
+                                                 int[] depths, int[] scratch) {
+        int[] from = cities;
+        int[] to = scratch;
+        for (int width = 1; width < count; width *= 2) {
+            for (int start = 0; start < count; start += 2 * width) {
+                int middle = Math.min(start + width, count);
+                int end = Math.min(start + 2 * width, count);
+                int left = start;
+                int right = middle;
+                for (int k = start; k < end; k++) {
+                    if (left < middle && (right == end || !before(from[right], from[left], distances, depths))) {
+                        to[k] = from[left++];
+                    } else {
+                        to[k] = from[right++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != cities) {
+            System.arraycopy(from, 0, cities, 0, count);
+        }
+    }
+
+    private static boolean before(int a, int b, double[] distances, int[] depths) {
+        long aBits = Double.doubleToRawLongBits(distances[a]);
+        long bBits = Double.doubleToRawLongBits(distances[b]);
+        return aBits > bBits || (aBits == bBits && depths[a] > depths[b]);
+    }
+}
@@ -0,0 +1,67 @@
+package routing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Concurrent log-linear histogram in the style of HdrHistogram: values are
+// grouped by power of two, and each power of two is split into 64 linear
+// sub-buckets, which keeps every recorded value within about 1.6%.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 64 - SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAGNITUDES + 1) * SUB_BUCKETS);
+
+    public void record(long value) {
+        counts.incrementAndGet(bucketOf(Math.max(0, value)));
+    }
+
+    // Copies the counts, optionally zeroing them for the next interval
+    public long[] snapshot(boolean reset) {
+        long[] copy = new long[counts.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+        return copy;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBoundOf(int bucket) {
+        int row = bucket >>> SUB_BUCKET_BITS;
+        long subBucket = bucket & (SUB_BUCKETS - 1);
+        if (row == 0) {
+            return subBucket;
+        }
+        int shift = row - 1;
+        return ((SUB_BUCKETS | subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    // Value at the given percentile (0-100) of a snapshot, 0 when empty
+    static long valueAtPercentile(long[] snapshot, double percentile) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < snapshot.length; bucket++) {
+            seen += snapshot[bucket];
+            if (seen >= rank) {
+                return upperBoundOf(bucket);
+            }
+        }
+        return upperBoundOf(snapshot.length - 1);
+    }
+}
@@ -0,0 +1,105 @@
+package routing;
+
+import java.util.PriorityQueue;
+
+// Dijkstra's algorithm on java.util.PriorityQueue without decrease-key:
+// improved distances are pushed as new entries and stale ones are skipped
+// when polled. Kept as a baseline to compare against DijkstraEngine; unlike
+// it, every push allocates a queue entry.
+public class LazyDijkstraEngine implements ShortestPathEngine {
+    private final FlightGraph graph;
+    private final WorkspacePool workspaces = new WorkspacePool(2);
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public LazyDijkstraEngine(FlightGraph graph) {
+        this.graph = graph;
+    }
+
+    private static class QueueEntry implements Comparable<QueueEntry> {
+        final int city;
+        final double distance;
+
+        QueueEntry(int city, double distance) {
+            this.city = city;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(QueueEntry other) {
+            return Double.compare(distance, other.distance);
+        }
+    }
+
+    @Override
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route) {
+        route.clear();
+        int n = graph.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return false;
+        }
+
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int settledCount = 0;
+        int relaxedCount = 0;
+        int heapOperations = 1;
+
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        SearchWorkspace workspace = workspaces.get(n);
+
+        PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        workspace.reach(sourceIdx, 0, -1, -1);
+        queue.add(new QueueEntry(sourceIdx, 0));
+
+        boolean found = false;
+        while (!queue.isEmpty()) {
+            QueueEntry entry = queue.poll();
+            heapOperations++;
+            int current = entry.city;
+            if (workspace.isSettled(current) || entry.distance > workspace.distance(current)) {
+                continue; // stale entry
+            }
+            if (current == destIdx) {
+                found = true;
+                break;
+            }
+            workspace.settle(current);
+            if (Cancellation.requested(++settledCount)) {
+                break;
+            }
+
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                if (workspace.isSettled(next)) {
+                    continue;
+                }
+                double candidate = entry.distance + weights[e];
+                relaxedCount++;
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, current, e);
+                    queue.add(new QueueEntry(next, candidate));
+                    heapOperations++;
+                }
+            }
+        }
+
+        if (found) {
+            route.setFromWorkspace(graph, workspace, destIdx);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(settledCount, relaxedCount, heapOperations, System.nanoTime() - start);
+        }
+        return found;
+    }
+}
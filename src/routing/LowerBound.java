@@ -0,0 +1,8 @@
+package routing;
+
+// Admissible estimate for goal-directed search: estimate must never exceed
+// the weight of the best route from city to target under the criterion.
+// Implementations are shared between threads and must not keep query state.
+public interface LowerBound {
+    double estimate(int city, int target, Criterion criterion);
+}
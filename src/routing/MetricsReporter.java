@@ -0,0 +1,41 @@
+package routing;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Publishes a RoutingMetrics snapshot on a fixed period from a daemon thread.
+// Each snapshot covers the interval since the previous one.
+public class MetricsReporter implements AutoCloseable {
+    private final RoutingMetrics metrics;
+    private final Consumer<MetricsSnapshot> sink;
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(RoutingMetrics metrics, Consumer<MetricsSnapshot> sink, long period, TimeUnit unit) {
+        this.metrics = metrics;
+        this.sink = sink;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "routing-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, period, period, unit);
+    }
+
+    private void report() {
+        sink.accept(metrics.snapshot(true));
+    }
+
+    // Stops the schedule and publishes whatever was recorded since the last report
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        report();
+    }
+}
@@ -0,0 +1,48 @@
+package routing;
+
+// Point-in-time copy of RoutingMetrics. Latency percentiles are in nanoseconds.
+public class MetricsSnapshot {
+    public final long timestampMillis;
+    public final long queries;
+    public final long settledNodes;
+    public final long relaxedEdges;
+    public final long heapOperations;
+    public final long unresolvedCities;
+    public final long latencyP50;
+    public final long latencyP90;
+    public final long latencyP99;
+    public final long latencyP999;
+    public final long latencyMax;
+
+    MetricsSnapshot(long timestampMillis, long queries, long settledNodes, long relaxedEdges,
+                    long heapOperations, long unresolvedCities, long[] latencyHistogram) {
+        this.timestampMillis = timestampMillis;
+        this.queries = queries;
+        this.settledNodes = settledNodes;
+        this.relaxedEdges = relaxedEdges;
+        this.heapOperations = heapOperations;
+        this.unresolvedCities = unresolvedCities;
+        this.latencyP50 = LatencyHistogram.valueAtPercentile(latencyHistogram, 50);
+        this.latencyP90 = LatencyHistogram.valueAtPercentile(latencyHistogram, 90);
+        this.latencyP99 = LatencyHistogram.valueAtPercentile(latencyHistogram, 99);
+        this.latencyP999 = LatencyHistogram.valueAtPercentile(latencyHistogram, 99.9);
+        this.latencyMax = LatencyHistogram.valueAtPercentile(latencyHistogram, 100);
+    }
+
+    public double settledPerQuery() {
+        return queries == 0 ? 0 : (double) settledNodes / queries;
+    }
+
+    public double relaxedPerQuery() {
+        return queries == 0 ? 0 : (double) relaxedEdges / queries;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "queries=%d settled/query=%.1f relaxed/query=%.1f heapOps=%d unresolved=%d "
+                + "latency_us p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+            queries, settledPerQuery(), relaxedPerQuery(), heapOperations, unresolvedCities,
+            latencyP50 / 1e3, latencyP90 / 1e3, latencyP99 / 1e3, latencyP999 / 1e3, latencyMax / 1e3);
+    }
+}
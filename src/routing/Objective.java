@@ -0,0 +1,163 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// A route objective combining the criteria, compiled into one weight per
+// edge so searches stay as simple as for a single criterion. Either a
+// weighted sum costWeight * cost + durationWeight * minutes + distanceWeight * km,
+// or a lexicographic order such as time, then cost on ties.
+//
+// A lexicographic order is compiled into first * scale + second, with scale
+// a power of two above the longest possible route under the second
+// criterion. It is exact as long as routes whose first totals differ do so
+// by at least one unit (a minute, a currency unit or a km).
+public final class Objective {
+    private static final double MAX_EXACT = 0x1p53; // doubles hold integers exactly up to here
+
+    private final double[] criterionWeights; // indexed by Criterion.ordinal(), null when lexicographic
+    private final Criterion first;
+    private final Criterion second;
+
+    private Objective(double[] criterionWeights, Criterion first, Criterion second) {
+        this.criterionWeights = criterionWeights;
+        this.first = first;
+        this.second = second;
+    }
+
+    // Weights must be finite and non-negative, and at least one above zero
+    public static Objective weightedSum(double costWeight, double durationWeight, double distanceWeight) {
+        double[] weights = new double[Criterion.values().length];
+        weights[Criterion.COST.ordinal()] = costWeight;
+        weights[Criterion.TIME.ordinal()] = durationWeight;
+        weights[Criterion.DISTANCE.ordinal()] = distanceWeight;
+        boolean any = false;
+        for (double weight : weights) {
+            if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY) {
+                throw new IllegalArgumentException("Objective weights must be finite and non-negative: " + weight);
+            }
+            any |= weight > 0;
+        }
+        if (!any) {
+            throw new IllegalArgumentException("Objective needs at least one positive weight");
+        }
+        return new Objective(weights, null, null);
+    }
+
+    // Routes are ordered by first, and routes equal under first by second
+    public static Objective lexicographic(Criterion first, Criterion second) {
+        if (first == second) {
+            throw new IllegalArgumentException("Lexicographic objective needs two different criteria: " + first);
+        }
+        return new Objective(null, first, second);
+    }
+
+    // Accepts a weighted sum such as "cost + 0.5*time + 2*distance" or a
+    // lexicographic order such as "time > cost". Criteria are named as in
+    // Criterion.fromLabel.
+    public static Objective parse(String text) {
+        int order = text.indexOf('>');
+        if (order >= 0) {
+            return lexicographic(Criterion.fromLabel(text.substring(0, order)),
+                Criterion.fromLabel(text.substring(order + 1)));
+        }
+        double[] weights = new double[Criterion.values().length];
+        for (String term : text.split("\\+")) {
+            int times = term.indexOf('*');
+            double weight = 1;
+            String name = term;
+            if (times >= 0) {
+                try {
+                    weight = Double.parseDouble(term.substring(0, times).trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid objective weight: " + term.trim());
+                }
+                name = term.substring(times + 1);
+            }
+            weights[Criterion.fromLabel(name).ordinal()] += weight;
+        }
+        return weightedSum(weights[Criterion.COST.ordinal()], weights[Criterion.TIME.ordinal()],
+            weights[Criterion.DISTANCE.ordinal()]);
+    }
+
+    public boolean isLexicographic() {
+        return criterionWeights == null;
+    }
+
+    // One weight per CSR edge. NaN distances stay NaN, so edges without
+    // coordinates are skipped whenever distance is part of the objective.
+    double[] compile(FlightGraph graph) {
+        int edges = graph.getEdgeCount();
+        double[] weights = new double[edges];
+        if (criterionWeights != null) {
+            for (Criterion criterion : Criterion.values()) {
+                double factor = criterionWeights[criterion.ordinal()];
+                if (factor == 0) {
+                    continue; // also keeps NaN distances out of objectives that ignore distance
+                }
+                double[] source = graph.getWeights(criterion);
+                for (int e = 0; e < edges; e++) {
+                    weights[e] += factor * source[e];
+                }
+            }
+            return weights;
+        }
+
+        double[] primary = graph.getWeights(first);
+        double[] secondary = graph.getWeights(second);
+        double longestEdge = 0;
+        double longestPrimary = 0;
+        for (int e = 0; e < edges; e++) {
+            longestEdge = Math.max(longestEdge, Double.isNaN(secondary[e]) ? 0 : secondary[e]);
+            longestPrimary = Math.max(longestPrimary, Double.isNaN(primary[e]) ? 0 : primary[e]);
+        }
+        // Shortest routes are simple, so no route is longer than cityCount - 1 edges
+        int hops = Math.max(1, graph.getCityCount() - 1);
+        double scale = Math.max(1, Math.scalb(1.0, Math.getExponent(longestEdge * hops) + 1));
+        if ((longestPrimary * hops + 1) * scale > MAX_EXACT) {
+            throw new IllegalArgumentException("Routes are too long to order " + this + " exactly");
+        }
+        for (int e = 0; e < edges; e++) {
+            weights[e] = primary[e] * scale + secondary[e];
+        }
+        return weights;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Objective)) {
+            return false;
+        }
+        Objective objective = (Objective) other;
+        return Arrays.equals(criterionWeights, objective.criterionWeights)
+            && first == objective.first && second == objective.second;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(criterionWeights) + (first == null ? 0 : 31 * first.hashCode() + second.hashCode());
+    }
+
+    // In the form parse accepts, e.g. "cost + 0.5*time" or "time > cost"
+    @Override
+    public String toString() {
+        if (criterionWeights == null) {
+            return first.name().toLowerCase(Locale.ROOT) + " > " + second.name().toLowerCase(Locale.ROOT);
+        }
+        StringBuilder text = new StringBuilder();
+        for (Criterion criterion : new Criterion[] { Criterion.COST, Criterion.TIME, Criterion.DISTANCE }) {
+            double weight = criterionWeights[criterion.ordinal()];
+            if (weight == 0) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(" + ");
+            }
+            if (weight != 1) {
+                text.append(weight == Math.rint(weight) ? Long.toString((long) weight) : Double.toString(weight)).append('*');
+            }
+            text.append(criterion.name().toLowerCase(Locale.ROOT));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package routing;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Loads large capitals/flights files on several threads. Everything before
+// the route section is parsed first, on the calling thread. The route
+// section is then cut into byte ranges that start right after a newline,
+// and each range is parsed into its own flight buffers. The buffers are
+// merged in file order and packed into the graph in one build, so the
+// result is the same graph, city order and error lines as FlightDataLoader.
+//
+// The file is read as UTF-8, and capital lines must come before the routes.
+public class ParallelFlightLoader {
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private ParallelFlightLoader() {
+    }
+
+    public static RouteNetwork load(String path) throws IOException {
+        return load(path, ForkJoinPool.commonPool());
+    }
+
+    // Lines that cannot be read are reported on stderr and skipped
+    public static RouteNetwork load(String path, ForkJoinPool pool) throws IOException {
+        List<String> errors = new ArrayList<>();
+        RouteNetwork network = load(path, errors, pool);
+        for (String error : errors) {
+            System.err.println(error);
+        }
+        return network;
+    }
+
+    // Collects a "Line N: ..." message for every line that cannot be read
+    public static RouteNetwork load(String path, List<String> errors, ForkJoinPool pool) throws IOException {
+        Path file = Paths.get(path);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long routeStart = findRouteSection(channel, size);
+
+            FlightDataParser head = new FlightDataParser();
+            head.parse(reader(channel, 0, routeStart));
+
+            long routeBytes = size - routeStart;
+            int chunkCount = (int) Math.max(1, Math.min((long) pool.getParallelism() * CHUNKS_PER_THREAD,
+                routeBytes / MIN_CHUNK_BYTES));
+            long[] bounds = split(channel, routeStart, size, chunkCount);
+            FlightDataParser[] chunks = new FlightDataParser[chunkCount];
+            CityIndex knownCities = head.getGraph().getNameIndex();
+            try {
+                ParallelRange.forEach(pool, chunkCount, chunk -> {
+                    FlightDataParser parser = new FlightDataParser(knownCities);
+                    try {
+                        parser.parse(reader(channel, bounds[chunk], bounds[chunk + 1]));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    chunks[chunk] = parser;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            for (FlightDataParser chunk : chunks) {
+                head.append(chunk);
+            }
+            return head.finish(errors);
+        }
+    }
+
+    // Byte offset of the first route line: just past the route count line in
+    // the README layout, otherwise the first line with four or more fields.
+    // The file size when there are no routes.
+    private static long findRouteSection(FileChannel channel, long size) throws IOException {
+        InputStream in = new BufferedInputStream(new RangeInputStream(channel, 0, size), READ_BUFFER_SIZE);
+        long position = 0;
+        long lineStart = 0;
+        int countLines = 0;
+        int commas = 0;
+        boolean blank = true;
+        boolean digitsOnly = true;
+        while (true) {
+            int b = in.read();
+            if (b == -1 || b == '\n') {
+                if (!blank && commas == 0 && digitsOnly) {
+                    countLines++;
+                    if (countLines == 2) {
+                        return b == -1 ? size : position + 1;
+                    }
+                } else if (!blank && countLines == 0 && commas >= 3) {
+                    return lineStart;
+                }
+                if (b == -1) {
+                    return size;
+                }
+                lineStart = position + 1;
+                commas = 0;
+                blank = true;
+                digitsOnly = true;
+            } else if (b == ',') {
+                commas++;
+                blank = false;
+                digitsOnly = false;
+            } else if (b > ' ') {
+                blank = false;
+                digitsOnly &= b >= '0' && b <= '9';
+            }
+            position++;
+        }
+    }
+
+    // Chunk boundaries from start to end, each moved forward to just past a newline
+    private static long[] split(FileChannel channel, long start, long end, int chunkCount) throws IOException {
+        long[] bounds = new long[chunkCount + 1];
+        bounds[0] = start;
+        bounds[chunkCount] = end;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < chunkCount; i++) {
+            long target = Math.max(start + (end - start) * i / chunkCount, bounds[i - 1]);
+            bounds[i] = nextLineStart(channel, target, end, probe);
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long end, ByteBuffer probe) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        long scan = position - 1; // position already starts a line if the byte before is a newline
+        while (scan < end) {
+            probe.clear();
+            int read = channel.read(probe, scan);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return Math.min(end, scan + i + 1);
+                }
+            }
+            scan += read;
+        }
+        return end;
+    }
+
+    private static InputStreamReader reader(FileChannel channel, long start, long end) {
+        return new InputStreamReader(new BufferedInputStream(new RangeInputStream(channel, start, end), READ_BUFFER_SIZE),
+            StandardCharsets.UTF_8);
+    }
+
+    // Positional reads of one byte range, so ranges can be read concurrently from one channel
+    private static final class RangeInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int wanted = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, wanted), position);
+            if (read == -1) {
+                return -1;
+            }
+            position += read;
+            return read;
+        }
+    }
+}
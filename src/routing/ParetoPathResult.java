@@ -0,0 +1,28 @@
+package routing;
+
+// Every non-dominated cost/duration trade-off between two cities, cheapest
+// (and so slowest) first, each route strictly faster than the one before.
+// The inherited fields describe the cheapest route, so code that shows a
+// single PathResult still gets a valid route.
+public class ParetoPathResult extends PathResult {
+    public final PathResult[] routes;
+    public final boolean truncated; // more trade-offs existed beyond the route limit
+
+    public ParetoPathResult(PathResult[] routes, boolean truncated) {
+        super(routes.length == 0 ? 0 : routes[0].pathLength);
+        this.routes = routes;
+        this.truncated = truncated;
+        if (routes.length > 0) {
+            PathResult cheapest = routes[0];
+            System.arraycopy(cheapest.path, 0, path, 0, cheapest.pathLength);
+            pathLength = cheapest.pathLength;
+            totalCost = cheapest.totalCost;
+            totalDuration = cheapest.totalDuration;
+            totalDistance = cheapest.totalDistance;
+        }
+    }
+
+    public int getRouteCount() {
+        return routes.length;
+    }
+}
@@ -0,0 +1,327 @@
+package routing;
+
+import java.util.Arrays;
+
+// Bi-criteria label-setting search for every route between two cities that
+// no other route beats on both cost and duration. Each city keeps only the
+// labels (cost, duration) not dominated by one settled there before.
+//
+// Labels leave the heap in order of cost plus the exact remaining cost to the
+// target, duration breaking ties, so every label settled at a city is cheaper
+// and a dominated one only needs checking against the fastest so far. Two
+// reverse Dijkstra searches from the target give those remaining costs and
+// durations; any label that cannot reach the target faster than the last
+// route found is dropped before it enters the heap. Routes therefore come out
+// cheapest first and strictly faster each time.
+//
+// The front size is bounded twice: epsilon > 0 only keeps a route at least
+// (1 + epsilon) times faster than the one before, and the search stops after
+// maxRoutes routes. Every route returned is still Pareto-optimal.
+public class ParetoRouteEngine {
+    public static final int DEFAULT_MAX_ROUTES = 64;
+    private static final int ARITY = 4;
+    private static final int INITIAL_LABELS = 1 << 10;
+
+    private final FlightGraph graph;
+    private final double epsilon;
+    private final int maxRoutes;
+    private final WorkspacePool costBounds = new WorkspacePool(ARITY);
+    private final WorkspacePool durationBounds = new WorkspacePool(ARITY);
+    private final ThreadLocal<Query> queries = new ThreadLocal<>();
+    private SearchMetrics metrics = SearchMetrics.NONE;
+
+    public ParetoRouteEngine(FlightGraph graph) {
+        this(graph, 0, DEFAULT_MAX_ROUTES);
+    }
+
+    public ParetoRouteEngine(FlightGraph graph, double epsilon, int maxRoutes) {
+        if (epsilon < 0 || Double.isNaN(epsilon)) {
+            throw new IllegalArgumentException("epsilon must be at least 0: " + epsilon);
+        }
+        if (maxRoutes < 1) {
+            throw new IllegalArgumentException("maxRoutes must be at least 1: " + maxRoutes);
+        }
+        this.graph = graph;
+        this.epsilon = epsilon;
+        this.maxRoutes = maxRoutes;
+    }
+
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Empty result when either city is unknown or the two are not connected
+    public ParetoPathResult findParetoRoutes(int sourceIdx, int destIdx) {
+        int n = graph.getCityCount();
+        if (sourceIdx < 0 || sourceIdx >= n || destIdx < 0 || destIdx >= n) {
+            return new ParetoPathResult(new PathResult[0], false);
+        }
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        Query query = query(n);
+        query.start();
+
+        // The graph is symmetric, so searching from the target gives the remaining
+        // cost and duration from every city
+        SearchWorkspace costLeft = costBounds.get(n);
+        SearchWorkspace durationLeft = durationBounds.get(n);
+        boolean cancelled = !searchFrom(destIdx, Criterion.COST, costLeft, query)
+            || !searchFrom(destIdx, Criterion.TIME, durationLeft, query);
+
+        int routeCount = 0;
+        boolean truncated = false;
+        if (!cancelled && costLeft.isReached(sourceIdx)) {
+            int[] offsets = graph.getOffsets();
+            int[] targets = graph.getTargets();
+            double[] costs = graph.getCosts();
+            int[] durations = graph.getDurations();
+            double limit = Double.POSITIVE_INFINITY; // routes must arrive strictly faster than this
+
+            query.push(query.newLabel(sourceIdx, 0, 0, -1, -1), costLeft.distance(sourceIdx), durationLeft.distance(sourceIdx));
+            while (query.heapSize > 0) {
+                int label = query.pop();
+                int city = query.labelCity[label];
+                int duration = query.labelDuration[label];
+                if (duration >= query.fastest(city) || duration + durationLeft.distance(city) >= limit) {
+                    continue; // dominated by a label settled since it was pushed
+                }
+                query.settle(city, duration);
+                if (Cancellation.requested(++query.settled)) {
+                    routeCount = 0;
+                    break;
+                }
+
+                if (city == destIdx) {
+                    query.routes[routeCount++] = label;
+                    limit = duration / (1 + epsilon);
+                    if (routeCount == maxRoutes) {
+                        truncated = query.hasCandidate(durationLeft, limit);
+                        break;
+                    }
+                    continue;
+                }
+
+                double cost = query.labelCost[label];
+                for (int e = offsets[city]; e < offsets[city + 1]; e++) {
+                    int next = targets[e];
+                    int nextDuration = duration + durations[e];
+                    query.relaxed++;
+                    double remaining = durationLeft.distance(next);
+                    if (nextDuration >= query.fastest(next) || nextDuration + remaining >= limit) {
+                        continue;
+                    }
+                    double nextCost = cost + costs[e];
+                    query.push(query.newLabel(next, nextCost, nextDuration, label, e),
+                        nextCost + costLeft.distance(next), nextDuration + remaining);
+                }
+            }
+        }
+
+        PathResult[] routes = new PathResult[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            routes[i] = buildRoute(sourceIdx, query.routes[i], query);
+        }
+        if (metrics.isEnabled()) {
+            metrics.recordQuery(query.settled, query.relaxed, query.heapOperations, System.nanoTime() - start);
+        }
+        return new ParetoPathResult(routes, truncated);
+    }
+
+    // Returns false when cancelled before every city was settled
+    private boolean searchFrom(int source, Criterion criterion, SearchWorkspace workspace, Query query) {
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        double[] weights = graph.getWeights(criterion);
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.reach(source, 0, -1, -1);
+        heap.insertOrDecrease(source, 0);
+        query.heapOperations++;
+        int settledCount = 0;
+        while (!heap.isEmpty()) {
+            int current = heap.pollMin();
+            query.heapOperations++;
+            workspace.settle(current);
+            if (Cancellation.requested(++settledCount)) {
+                return false;
+            }
+            double base = workspace.distance(current);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                if (workspace.isSettled(next)) {
+                    continue;
+                }
+                double candidate = base + weights[e];
+                if (candidate < workspace.distance(next)) {
+                    workspace.reach(next, candidate, current, e);
+                    heap.insertOrDecrease(next, candidate);
+                    query.heapOperations++;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Label chains are simple paths: revisiting a city means a dominated label
+    private PathResult buildRoute(int sourceIdx, int label, Query query) {
+        int count = 0;
+        for (int l = label; query.labelParent[l] != -1; l = query.labelParent[l]) {
+            count++;
+        }
+        int[] edges = query.edges;
+        int i = count;
+        for (int l = label; query.labelParent[l] != -1; l = query.labelParent[l]) {
+            edges[--i] = query.labelEdge[l];
+        }
+        query.route.setFromEdges(graph, sourceIdx, edges, count);
+        return query.route.toPathResult(graph);
+    }
+
+    private Query query(int cityCount) {
+        Query query = queries.get();
+        if (query == null || query.fastest.length < cityCount || query.routes.length < maxRoutes) {
+            query = new Query(cityCount, maxRoutes);
+            queries.set(query);
+        }
+        return query;
+    }
+
+    // Per-thread label pool, label heap and scratch space, grown as needed and reused
+    private static final class Query {
+        int[] labelCity = new int[INITIAL_LABELS];
+        int[] labelParent = new int[INITIAL_LABELS];
+        int[] labelEdge = new int[INITIAL_LABELS];
+        int[] labelDuration = new int[INITIAL_LABELS];
+        double[] labelCost = new double[INITIAL_LABELS];
+        int labelCount;
+
+        // Binary heap of label ids, ordered by costKey then durationKey
+        int[] heap = new int[INITIAL_LABELS];
+        double[] costKey = new double[INITIAL_LABELS];
+        double[] durationKey = new double[INITIAL_LABELS];
+        int heapSize;
+
+        // Fastest duration settled per city, valid when its stamp matches the generation
+        final int[] fastest;
+        final int[] stamp;
+        int generation;
+
+        final int[] routes;
+        final int[] edges;
+        final Route route = new Route();
+
+        int settled;
+        int relaxed;
+        int heapOperations;
+
+        Query(int cityCount, int maxRoutes) {
+            fastest = new int[cityCount];
+            stamp = new int[cityCount];
+            routes = new int[maxRoutes];
+            edges = new int[cityCount];
+        }
+
+        void start() {
+            labelCount = 0;
+            heapSize = 0;
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+            settled = 0;
+            relaxed = 0;
+            heapOperations = 0;
+        }
+
+        int fastest(int city) {
+            return stamp[city] == generation ? fastest[city] : Integer.MAX_VALUE;
+        }
+
+        void settle(int city, int duration) {
+            fastest[city] = duration;
+            stamp[city] = generation;
+        }
+
+        int newLabel(int city, double cost, int duration, int parent, int edge) {
+            if (labelCount == labelCity.length) {
+                int capacity = labelCount * 2;
+                labelCity = Arrays.copyOf(labelCity, capacity);
+                labelParent = Arrays.copyOf(labelParent, capacity);
+                labelEdge = Arrays.copyOf(labelEdge, capacity);
+                labelDuration = Arrays.copyOf(labelDuration, capacity);
+                labelCost = Arrays.copyOf(labelCost, capacity);
+                costKey = Arrays.copyOf(costKey, capacity);
+                durationKey = Arrays.copyOf(durationKey, capacity);
+            }
+            int label = labelCount++;
+            labelCity[label] = city;
+            labelParent[label] = parent;
+            labelEdge[label] = edge;
+            labelDuration[label] = duration;
+            labelCost[label] = cost;
+            return label;
+        }
+
+        void push(int label, double cost, double duration) {
+            costKey[label] = cost;
+            durationKey[label] = duration;
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (!before(label, heap[parent])) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = label;
+            heapOperations++;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            heapOperations++;
+            return top;
+        }
+
+        private boolean before(int a, int b) {
+            return costKey[a] < costKey[b] || (costKey[a] == costKey[b] && durationKey[a] < durationKey[b]);
+        }
+
+        // Whether any label still queued could lead to another route
+        boolean hasCandidate(SearchWorkspace durationLeft, double limit) {
+            for (int i = 0; i < heapSize; i++) {
+                int label = heap[i];
+                int city = labelCity[label];
+                int duration = labelDuration[label];
+                if (duration < fastest(city) && duration + durationLeft.distance(city) < limit) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package routing;
+
+public class PathResult {
+    public String[] path;
+    public int pathLength;
+    public double totalCost;
+    public int totalDuration;
+    public double totalDistance; // km, segments without coordinates are left out
+    
+    public PathResult(int maxSize) {
+        path = new String[maxSize];
+        pathLength = 0;
+        totalCost = 0;
+        totalDuration = 0;
+        totalDistance = 0;
+    }
+}
@@ -0,0 +1,166 @@
+package routing;
+
+import java.util.Arrays;
+
+// Compact route result: city indices plus totals. Meant to be reused across
+// queries, so steady-state routing does not allocate.
+public class Route {
+    public int[] cities;
+    public int length;
+    public double totalCost;
+    public int totalDuration;
+    public double totalDistance; // km, segments without coordinates are left out
+
+    public Route() {
+        cities = new int[16];
+        clear();
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public void clear() {
+        length = 0;
+        totalCost = 0;
+        totalDuration = 0;
+        totalDistance = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (cities.length < capacity) {
+            cities = Arrays.copyOf(cities, Math.max(capacity, cities.length * 2));
+        }
+    }
+
+    // Walks the predecessors recorded in the workspace back from destIdx
+    void setFromWorkspace(FlightGraph graph, SearchWorkspace workspace, int destIdx) {
+        clear();
+        int count = 0;
+        for (int city = destIdx; city != -1; city = workspace.previous(city)) {
+            count++;
+        }
+        ensureCapacity(count);
+
+        double[] costs = graph.getCosts();
+        int[] durations = graph.getDurations();
+        double[] distances = graph.getDistances();
+        int city = destIdx;
+        for (int i = count - 1; i >= 0; i--) {
+            cities[i] = city;
+            int edge = workspace.previousEdge(city);
+            if (edge >= 0) {
+                addEdge(costs, durations, distances, edge);
+            }
+            city = workspace.previous(city);
+        }
+        length = count;
+    }
+
+    // Joins a forward search tree and a backward one at the edge
+    // forwardEnd -> backwardStart. On the symmetric flight graph the backward
+    // tree's predecessor edges carry the same weights in the travel direction.
+    void setFromMeeting(FlightGraph graph, SearchWorkspace forward, int forwardEnd, int meetingEdge,
+                        SearchWorkspace backward, int backwardStart) {
+        clear();
+        int forwardCount = 0;
+        for (int city = forwardEnd; city != -1; city = forward.previous(city)) {
+            forwardCount++;
+        }
+        int backwardCount = 0;
+        for (int city = backwardStart; city != -1; city = backward.previous(city)) {
+            backwardCount++;
+        }
+        if (meetingEdge < 0) {
+            backwardCount--; // both trees end at the same city
+        }
+        ensureCapacity(forwardCount + backwardCount);
+
+        double[] costs = graph.getCosts();
+        int[] durations = graph.getDurations();
+        double[] distances = graph.getDistances();
+        int city = forwardEnd;
+        for (int i = forwardCount - 1; i >= 0; i--) {
+            cities[i] = city;
+            int edge = forward.previousEdge(city);
+            if (edge >= 0) {
+                addEdge(costs, durations, distances, edge);
+            }
+            city = forward.previous(city);
+        }
+        if (meetingEdge >= 0) {
+            addEdge(costs, durations, distances, meetingEdge);
+        }
+
+        city = meetingEdge >= 0 ? backwardStart : backward.previous(backwardStart);
+        int edge = meetingEdge >= 0 ? -1 : backward.previousEdge(backwardStart);
+        for (int i = forwardCount; i < forwardCount + backwardCount; i++) {
+            if (edge >= 0) {
+                addEdge(costs, durations, distances, edge);
+            }
+            cities[i] = city;
+            edge = backward.previousEdge(city);
+            city = backward.previous(city);
+        }
+        length = forwardCount + backwardCount;
+    }
+
+    // Follows count CSR edges from sourceIdx, e.g. flights unpacked from shortcuts
+    void setFromEdges(FlightGraph graph, int sourceIdx, int[] edges, int count) {
+        clear();
+        ensureCapacity(count + 1);
+        double[] costs = graph.getCosts();
+        int[] durations = graph.getDurations();
+        double[] distances = graph.getDistances();
+        int[] targets = graph.getTargets();
+        cities[0] = sourceIdx;
+        for (int i = 0; i < count; i++) {
+            cities[i + 1] = targets[edges[i]];
+            addEdge(costs, durations, distances, edges[i]);
+        }
+        length = count + 1;
+    }
+
+    // Copies a route kept elsewhere, e.g. in a RouteCache
+    void set(int[] routeCities, int routeLength, double cost, int duration, double distance) {
+        ensureCapacity(routeLength);
+        System.arraycopy(routeCities, 0, cities, 0, routeLength);
+        length = routeLength;
+        totalCost = cost;
+        totalDuration = duration;
+        totalDistance = distance;
+    }
+
+    // Starts a route at sourceIdx, to be extended one flight at a time with addFlight
+    void start(int sourceIdx) {
+        clear();
+        cities[0] = sourceIdx;
+        length = 1;
+    }
+
+    void addFlight(FlightGraph graph, int edge) {
+        ensureCapacity(length + 1);
+        cities[length++] = graph.getTargets()[edge];
+        addEdge(graph.getCosts(), graph.getDurations(), graph.getDistances(), edge);
+    }
+
+    private void addEdge(double[] costs, int[] durations, double[] distances, int edge) {
+        totalCost += costs[edge];
+        totalDuration += durations[edge];
+        if (!Double.isNaN(distances[edge])) {
+            totalDistance += distances[edge];
+        }
+    }
+
+    public PathResult toPathResult(FlightGraph graph) {
+        PathResult result = new PathResult(length);
+        for (int i = 0; i < length; i++) {
+            result.path[i] = graph.getCity(cities[i]);
+        }
+        result.pathLength = length;
+        result.totalCost = totalCost;
+        result.totalDuration = totalDuration;
+        result.totalDistance = totalDistance;
+        return result;
+    }
+}
@@ -0,0 +1,329 @@
+package routing;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Size-bounded cache of single-criterion route answers, keyed by
+// (source, target, criterion), so popular city pairs are searched once.
+// Answers that no route exists are cached too.
+//
+// Keys are spread over up to 16 segments by hash, each an open-addressing
+// table of primitive keys behind its own lock that evicts its least
+// recently used entry when full, so concurrent queries rarely contend and
+// a cached lookup allocates nothing. Every entry
+// describes the graph version it was computed on: once the graph changes,
+// e.g. after addFlight, the next access drops everything, and answers
+// computed against an older version are never stored.
+public class RouteCache {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final FlightGraph graph;
+    private final int capacity;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private volatile long version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RouteCache(FlightGraph graph, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Route cache capacity must be at least 1: " + capacity);
+        }
+        this.graph = graph;
+        this.capacity = capacity;
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && capacity / (segmentCount * 2) >= MIN_SEGMENT_CAPACITY) {
+            segmentCount *= 2;
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Spread the remainder so segment capacities add up to capacity
+            segments[i] = new Segment(capacity / segmentCount + (i < capacity % segmentCount ? 1 : 0));
+        }
+        segmentShift = 64 - Integer.numberOfTrailingZeros(segmentCount);
+        version = graph.getVersion();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    // The cached answer, or null on a miss
+    CachedRoute get(int sourceIdx, int destIdx, Criterion criterion) {
+        checkVersion();
+        long key = key(sourceIdx, destIdx, criterion);
+        Segment segment = segmentFor(key);
+        CachedRoute cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    // Stores the route, or that there is none when it is empty, unless the
+    // graph changed since graphVersion, when the search started
+    void put(int sourceIdx, int destIdx, Criterion criterion, Route route, long graphVersion) {
+        checkVersion();
+        if (graphVersion != version) {
+            return;
+        }
+        long key = key(sourceIdx, destIdx, criterion);
+        CachedRoute cached = new CachedRoute(route);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, cached);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // Times the whole cache was dropped because the graph changed
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d hits=%d misses=%d hitRate=%.3f evictions=%d invalidations=%d",
+            size(), capacity, getHits(), getMisses(), hitRate(), getEvictions(), getInvalidations());
+    }
+
+    private void checkVersion() {
+        long current = graph.getVersion();
+        if (current != version) {
+            synchronized (this) {
+                if (current != version) {
+                    clear();
+                    version = current;
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    // 30 bits per city index and 2 for the criterion
+    private static long key(int sourceIdx, int destIdx, Criterion criterion) {
+        return ((long) sourceIdx << 32) | ((long) destIdx << 2) | criterion.ordinal();
+    }
+
+    private Segment segmentFor(long key) {
+        // Fibonacci hashing; the high bits mix every bit of the key
+        return segmentShift == 64 ? segments[0] : segments[(int) ((key * 0x9E3779B97F4A7C15L) >>> segmentShift)];
+    }
+
+    // One cached answer, copied so later changes to the caller's Route do not leak in
+    static final class CachedRoute {
+        private final int[] cities;
+        private final double totalCost;
+        private final int totalDuration;
+        private final double totalDistance;
+
+        CachedRoute(Route route) {
+            cities = Arrays.copyOf(route.cities, route.length);
+            totalCost = route.totalCost;
+            totalDuration = route.totalDuration;
+            totalDistance = route.totalDistance;
+        }
+
+        // Writes the cached route into route; false when no route exists
+        boolean copyTo(Route route) {
+            route.set(cities, cities.length, totalCost, totalDuration, totalDistance);
+            return cities.length > 0;
+        }
+    }
+
+    // Open-addressing table of primitive keys, so a lookup boxes nothing, over
+    // entries linked from least to most recently used. Entry arrays grow up to
+    // segmentCapacity; after that a new key takes the least recently used slot.
+    private final class Segment {
+        private static final int INITIAL_ENTRIES = 16;
+
+        private final int segmentCapacity;
+        private long[] keys;
+        private CachedRoute[] values;
+        private int[] older; // next entry towards eldest, or -1
+        private int[] newer; // next entry towards newest, or -1
+        private int[] table; // entry + 1 per bucket, 0 when empty
+        private int size = 0;
+        private int eldest = -1;
+        private int newest = -1;
+
+        Segment(int segmentCapacity) {
+            this.segmentCapacity = segmentCapacity;
+            allocate(Math.min(segmentCapacity, INITIAL_ENTRIES));
+        }
+
+        int size() {
+            return size;
+        }
+
+        CachedRoute get(long key) {
+            int entry = find(key);
+            if (entry == -1) {
+                return null;
+            }
+            touch(entry);
+            return values[entry];
+        }
+
+        void put(long key, CachedRoute value) {
+            int entry = find(key);
+            if (entry != -1) {
+                values[entry] = value;
+                touch(entry);
+                return;
+            }
+            if (size == segmentCapacity) {
+                entry = eldest;
+                unlink(entry);
+                removeFromTable(entry);
+                evictions.increment();
+            } else {
+                if (size == keys.length) {
+                    allocate(Math.min(segmentCapacity, keys.length * 2));
+                }
+                entry = size++;
+            }
+            keys[entry] = key;
+            values[entry] = value;
+            addToTable(entry);
+            linkNewest(entry);
+        }
+
+        void clear() {
+            Arrays.fill(table, 0);
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+            eldest = -1;
+            newest = -1;
+        }
+
+        private int find(long key) {
+            int mask = table.length - 1;
+            for (int bucket = bucket(key); table[bucket] != 0; bucket = (bucket + 1) & mask) {
+                int entry = table[bucket] - 1;
+                if (keys[entry] == key) {
+                    return entry;
+                }
+            }
+            return -1;
+        }
+
+        private int bucket(long key) {
+            return Long.hashCode(key * 0x9E3779B97F4A7C15L) & (table.length - 1);
+        }
+
+        private void addToTable(int entry) {
+            int mask = table.length - 1;
+            int bucket = bucket(keys[entry]);
+            while (table[bucket] != 0) {
+                bucket = (bucket + 1) & mask;
+            }
+            table[bucket] = entry + 1;
+        }
+
+        // Backward-shift deletion: later keys of the probe run move up into the
+        // hole unless their own bucket lies after it
+        private void removeFromTable(int entry) {
+            int mask = table.length - 1;
+            int hole = bucket(keys[entry]);
+            while (table[hole] != entry + 1) {
+                hole = (hole + 1) & mask;
+            }
+            for (int next = (hole + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+                int home = bucket(keys[table[next] - 1]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    table[hole] = table[next];
+                    hole = next;
+                }
+            }
+            table[hole] = 0;
+        }
+
+        private void touch(int entry) {
+            if (entry != newest) {
+                unlink(entry);
+                linkNewest(entry);
+            }
+        }
+
+        private void unlink(int entry) {
+            if (older[entry] == -1) {
+                eldest = newer[entry];
+            } else {
+                newer[older[entry]] = newer[entry];
+            }
+            if (newer[entry] == -1) {
+                newest = older[entry];
+            } else {
+                older[newer[entry]] = older[entry];
+            }
+        }
+
+        private void linkNewest(int entry) {
+            older[entry] = newest;
+            newer[entry] = -1;
+            if (newest == -1) {
+                eldest = entry;
+            } else {
+                newer[newest] = entry;
+            }
+            newest = entry;
+        }
+
+        // Keeps the table at most half full
+        private void allocate(int entries) {
+            keys = keys == null ? new long[entries] : Arrays.copyOf(keys, entries);
+            values = values == null ? new CachedRoute[entries] : Arrays.copyOf(values, entries);
+            older = older == null ? new int[entries] : Arrays.copyOf(older, entries);
+            newer = newer == null ? new int[entries] : Arrays.copyOf(newer, entries);
+            table = new int[Integer.highestOneBit(Math.max(1, entries - 1)) << 2];
+            for (int entry = 0; entry < size; entry++) {
+                addToTable(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package routing;
+
+// Capitals and the flights between them, plus the engine answering route
+// queries. Has no UI dependencies, so it runs the same on servers and in WorldMap.
+public class RouteNetwork {
+    private final Capital[] capitals;
+    private final Capital[] capitalsByCity; // graph city index -> capital, null for flight-only cities
+    private final FlightGraph graph;
+    private ShortestPathEngine engine;
+    private final ParetoRouteEngine paretoEngine;
+    private final DijkstraEngine objectiveEngine; // combined objectives need a search over their own weights
+    private final KShortestPathsEngine alternativesEngine;
+    private SearchMetrics metrics = SearchMetrics.NONE;
+    private RouteCache cache; // null when criterion queries are not cached
+
+    public RouteNetwork(Capital[] capitals, FlightGraph graph) {
+        this.capitals = capitals;
+        this.graph = graph;
+        this.engine = new DijkstraEngine(graph);
+        this.paretoEngine = new ParetoRouteEngine(graph);
+        this.objectiveEngine = new DijkstraEngine(graph);
+        this.alternativesEngine = new KShortestPathsEngine(graph);
+
+        // Resolve every capital to its graph city once; capitals without
+        // flights are registered so names and ids stay shared
+        int[] cityOfCapital = new int[capitals.length];
+        for (int i = 0; i < capitals.length; i++) {
+            int index = graph.getCityIndexByName(capitals[i].name);
+            if (index == -1) {
+                index = graph.addCity(capitals[i].name, capitals[i].latitude, capitals[i].longitude);
+            }
+            cityOfCapital[i] = index;
+        }
+        capitalsByCity = new Capital[graph.getCityCount()];
+        for (int i = 0; i < capitals.length; i++) {
+            capitalsByCity[cityOfCapital[i]] = capitals[i];
+        }
+    }
+
+    public Capital[] getCapitals() {
+        return capitals;
+    }
+
+    public int getCapitalCount() {
+        return capitals.length;
+    }
+
+    public FlightGraph getGraph() {
+        return graph;
+    }
+
+    public ShortestPathEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(ShortestPathEngine engine) {
+        this.engine = engine;
+        engine.setMetrics(metrics);
+    }
+
+    public RouteCache getCache() {
+        return cache;
+    }
+
+    // Caches criterion queries made through findRoute and findShortestPath;
+    // null turns caching off. Pareto, objective and alternative queries are not cached.
+    public void setCache(RouteCache cache) {
+        this.cache = cache;
+    }
+
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Applies to the current engine, any engine set later, and the Pareto,
+    // objective and alternative route queries
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+        engine.setMetrics(metrics);
+        paretoEngine.setMetrics(metrics);
+        objectiveEngine.setMetrics(metrics);
+        alternativesEngine.setMetrics(metrics);
+    }
+
+    public PathResult findShortestPath(String source, String destination, Criterion criterion) {
+        Route route = new Route();
+        if (!findRoute(source, destination, criterion, route)) {
+            return new PathResult(0); // Return empty path
+        }
+        return route.toPathResult(graph);
+    }
+
+    // Allocation-free form for batch callers that reuse one Route per thread
+    public boolean findRoute(String source, String destination, Criterion criterion, Route route) {
+        int sourceIdx = graph.getCityIndexByName(source);
+        int destIdx = graph.getCityIndexByName(destination);
+
+        // Validate source and destination
+        if (sourceIdx == -1 || destIdx == -1) {
+            if (metrics.isEnabled()) {
+                metrics.recordUnresolvedCity();
+            }
+            route.clear();
+            return false;
+        }
+        if (cache == null) {
+            return engine.findRoute(sourceIdx, destIdx, criterion, route);
+        }
+        RouteCache.CachedRoute cached = cache.get(sourceIdx, destIdx, criterion);
+        if (cached != null) {
+            return cached.copyTo(route);
+        }
+        long version = graph.getVersion();
+        boolean found = engine.findRoute(sourceIdx, destIdx, criterion, route);
+        if (found || !Thread.currentThread().isInterrupted()) { // a cancelled search proves nothing
+            cache.put(sourceIdx, destIdx, criterion, route, version);
+        }
+        return found;
+    }
+
+    public PathResult findShortestPath(String source, String destination, Objective objective) {
+        Route route = new Route();
+        if (!findRoute(source, destination, objective, route)) {
+            return new PathResult(0);
+        }
+        return route.toPathResult(graph);
+    }
+
+    // Searched with Dijkstra over the objective's compiled weights, whatever the engine
+    public boolean findRoute(String source, String destination, Objective objective, Route route) {
+        int sourceIdx = graph.getCityIndexByName(source);
+        int destIdx = graph.getCityIndexByName(destination);
+        if (sourceIdx == -1 || destIdx == -1) {
+            if (metrics.isEnabled()) {
+                metrics.recordUnresolvedCity();
+            }
+            route.clear();
+            return false;
+        }
+        return objectiveEngine.findRoute(sourceIdx, destIdx, objective, route);
+    }
+
+    // Up to k loopless routes, best first, e.g. backups for when a leg sells
+    // out; empty when either city is unknown or they are not connected
+    public PathResult[] findAlternativeRoutes(String source, String destination, Criterion criterion, int k) {
+        int sourceIdx = resolve(source);
+        int destIdx = resolve(destination);
+        if (sourceIdx == -1 || destIdx == -1) {
+            return new PathResult[0];
+        }
+        return alternativesEngine.findRoutes(sourceIdx, destIdx, criterion, k);
+    }
+
+    public PathResult[] findAlternativeRoutes(String source, String destination, Objective objective, int k) {
+        int sourceIdx = resolve(source);
+        int destIdx = resolve(destination);
+        if (sourceIdx == -1 || destIdx == -1) {
+            return new PathResult[0];
+        }
+        return alternativesEngine.findRoutes(sourceIdx, destIdx, objective, k);
+    }
+
+    // Graph index of a city, counting an unknown name in the metrics
+    private int resolve(String city) {
+        int index = graph.getCityIndexByName(city);
+        if (index == -1 && metrics.isEnabled()) {
+            metrics.recordUnresolvedCity();
+        }
+        return index;
+    }
+
+    // Every cost/duration trade-off between two cities, cheapest first; an
+    // empty result when either city is unknown or they are not connected
+    public ParetoPathResult findParetoRoutes(String source, String destination) {
+        int sourceIdx = resolve(source);
+        int destIdx = resolve(destination);
+        if (sourceIdx == -1 || destIdx == -1) {
+            return new ParetoPathResult(new PathResult[0], false);
+        }
+        return paretoEngine.findParetoRoutes(sourceIdx, destIdx);
+    }
+
+    // Case-insensitive and ignores surrounding whitespace; null when unknown
+    public Capital findCapitalByName(String name) {
+        if (name == null) return null;
+        int index = graph.getCityIndexByName(name);
+        return index == -1 ? null : getCapitalByCity(index);
+    }
+
+    // Capital registered for a graph city index, or null for cities only seen in flights
+    public Capital getCapitalByCity(int cityIndex) {
+        return cityIndex < capitalsByCity.length ? capitalsByCity[cityIndex] : null;
+    }
+}
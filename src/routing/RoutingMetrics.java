@@ -0,0 +1,46 @@
+package routing;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-safe SearchMetrics that accumulates counters and a latency histogram
+// until a snapshot is taken
+public class RoutingMetrics implements SearchMetrics {
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder settledNodes = new LongAdder();
+    private final LongAdder relaxedEdges = new LongAdder();
+    private final LongAdder heapOperations = new LongAdder();
+    private final LongAdder unresolvedCities = new LongAdder();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordQuery(int settled, int relaxed, int heapOps, long latencyNanos) {
+        queries.increment();
+        settledNodes.add(settled);
+        relaxedEdges.add(relaxed);
+        heapOperations.add(heapOps);
+        latencies.record(latencyNanos);
+    }
+
+    @Override
+    public void recordUnresolvedCity() {
+        unresolvedCities.increment();
+    }
+
+    // Cumulative totals since creation or since the last resetting snapshot
+    public MetricsSnapshot snapshot(boolean reset) {
+        long[] histogram = latencies.snapshot(reset);
+        return new MetricsSnapshot(
+            System.currentTimeMillis(),
+            reset ? queries.sumThenReset() : queries.sum(),
+            reset ? settledNodes.sumThenReset() : settledNodes.sum(),
+            reset ? relaxedEdges.sumThenReset() : relaxedEdges.sum(),
+            reset ? heapOperations.sumThenReset() : heapOperations.sum(),
+            reset ? unresolvedCities.sumThenReset() : unresolvedCities.sum(),
+            histogram);
+    }
+}
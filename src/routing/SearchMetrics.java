@@ -0,0 +1,28 @@
+package routing;
+
+// Instrumentation hook for route searches. Engines count work in local
+// variables and report once per query, and only when isEnabled() is true,
+// so the default NONE costs a single branch per query.
+public interface SearchMetrics {
+    SearchMetrics NONE = new SearchMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordQuery(int settledNodes, int relaxedEdges, int heapOperations, long latencyNanos) {
+        }
+
+        @Override
+        public void recordUnresolvedCity() {
+        }
+    };
+
+    boolean isEnabled();
+
+    void recordQuery(int settledNodes, int relaxedEdges, int heapOperations, long latencyNanos);
+
+    // A query named a city that is not in the network
+    void recordUnresolvedCity();
+}
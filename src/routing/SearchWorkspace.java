@@ -0,0 +1,99 @@
+package routing;
+
+import java.util.Arrays;
+
+// Scratch arrays for one search, reused across queries. An entry is only
+// valid when its stamp matches the current generation, so starting a new
+// search bumps a counter instead of refilling every array.
+public class SearchWorkspace {
+    private final double[] distances;
+    private final int[] previous;
+    private final int[] previousEdge;
+    private final int[] reached; // generation in which the city got a distance
+    private final int[] settled; // generation in which the city was settled
+    private final IndexedDaryHeap heap;
+    private double[] estimates; // goal-directed bounds, allocated on first use
+    private int[] estimated;
+    private int generation;
+
+    public SearchWorkspace(int capacity, int arity) {
+        distances = new double[capacity];
+        previous = new int[capacity];
+        previousEdge = new int[capacity];
+        reached = new int[capacity];
+        settled = new int[capacity];
+        heap = new IndexedDaryHeap(capacity, arity);
+        generation = 0;
+    }
+
+    public int capacity() {
+        return distances.length;
+    }
+
+    // Forgets the previous search in O(1), apart from emptying the heap
+    public void reset() {
+        heap.clear();
+        generation++;
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(reached, 0);
+            Arrays.fill(settled, 0);
+            if (estimated != null) {
+                Arrays.fill(estimated, 0);
+            }
+            generation = 1;
+        }
+    }
+
+    public IndexedDaryHeap heap() {
+        return heap;
+    }
+
+    public double distance(int city) {
+        return reached[city] == generation ? distances[city] : Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isReached(int city) {
+        return reached[city] == generation;
+    }
+
+    // Records a tentative distance and how the city was reached (-1 for the source)
+    public void reach(int city, double distance, int from, int edge) {
+        distances[city] = distance;
+        previous[city] = from;
+        previousEdge[city] = edge;
+        reached[city] = generation;
+    }
+
+    public int previous(int city) {
+        return previous[city];
+    }
+
+    public int previousEdge(int city) {
+        return previousEdge[city];
+    }
+
+    public boolean isSettled(int city) {
+        return settled[city] == generation;
+    }
+
+    public void settle(int city) {
+        settled[city] = generation;
+    }
+
+    public boolean hasEstimate(int city) {
+        return estimated != null && estimated[city] == generation;
+    }
+
+    public double estimate(int city) {
+        return estimates[city];
+    }
+
+    public void storeEstimate(int city, double estimate) {
+        if (estimates == null) {
+            estimates = new double[capacity()];
+            estimated = new int[capacity()];
+        }
+        estimates[city] = estimate;
+        estimated[city] = generation;
+    }
+}
@@ -0,0 +1,23 @@
+package routing;
+
+// Common entry point for the single-pair route search implementations
+public interface ShortestPathEngine {
+    FlightGraph getGraph();
+
+    // Counters are reported once per query; SearchMetrics.NONE disables them
+    void setMetrics(SearchMetrics metrics);
+
+    // Writes the best route into the caller's Route, which can be reused across
+    // queries. Returns false, leaving the route empty, when either city is
+    // unknown, no route exists or the thread was interrupted while searching.
+    boolean findRoute(int sourceIdx, int destIdx, Criterion criterion, Route route);
+
+    // Convenience form that allocates a named PathResult, e.g. for the UI
+    default PathResult findShortestPath(int sourceIdx, int destIdx, Criterion criterion) {
+        Route route = new Route();
+        if (!findRoute(sourceIdx, destIdx, criterion, route)) {
+            return new PathResult(0);
+        }
+        return route.toPathResult(getGraph());
+    }
+}
@@ -0,0 +1,21 @@
+package routing;
+
+// One SearchWorkspace per thread, replaced when the graph outgrows it
+class WorkspacePool {
+    private final int arity;
+    private final ThreadLocal<SearchWorkspace> workspaces = new ThreadLocal<>();
+
+    WorkspacePool(int arity) {
+        this.arity = arity;
+    }
+
+    SearchWorkspace get(int capacity) {
+        SearchWorkspace workspace = workspaces.get();
+        if (workspace == null || workspace.capacity() < capacity) {
+            workspace = new SearchWorkspace(capacity, arity);
+            workspaces.set(workspace);
+        }
+        workspace.reset();
+        return workspace;
+    }
+}